@@ -19,6 +19,61 @@ if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_POST['username']) && isset(
     }
 }
 
+// Save a batch of swipes from the client outbox in a single multi-row INSERT.
+// Each swipe carries a client event_id; INSERT IGNORE on its unique key makes
+// retried batches idempotent. A batch with a malformed swipe is rejected whole
+// with 400, which the outbox treats as final (it splits the batch to find it).
+if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_GET['action']) && $_GET['action'] === 'save_user_swipes_bulk'
+        && isset($_POST['username']) && isset($_POST['swipes'])) {
+    $username = $_POST['username'];
+    $swipes = json_decode($_POST['swipes'], true);
+
+    if (!is_array($swipes) || count($swipes) === 0 || count($swipes) > 100) {
+        http_response_code(400);
+        echo "Invalid swipe batch";
+        exit;
+    }
+    foreach ($swipes as $i => $swipe) {
+        if (!is_array($swipe)
+                || !isset($swipe['songid']) || !is_string($swipe['songid'])
+                || preg_match('/^[0-9A-Za-z]{22}$/', $swipe['songid']) !== 1           // Spotify track ID
+                || !isset($swipe['event_id']) || !is_string($swipe['event_id'])
+                || preg_match('/^[0-9A-Fa-f-]{36}$/', $swipe['event_id']) !== 1        // client UUID
+                || !isset($swipe['swiped_at']) || !is_numeric($swipe['swiped_at'])) {
+            http_response_code(400);
+            echo "Invalid swipe at index " . $i;
+            exit;
+        }
+    }
+
+    $rows = [];
+    $params = [];
+    foreach ($swipes as $swipe) {
+        $rows[] = "(?, ?, ?, ?, ?, ?, FROM_UNIXTIME(?))";
+        array_push($params,
+            $username,
+            $swipe['songid'],
+            !empty($swipe['liked']) ? 1 : 0,
+            isset($swipe['title']) ? $swipe['title'] : null,
+            isset($swipe['artist']) ? $swipe['artist'] : null,
+            $swipe['event_id'],
+            intdiv((int) $swipe['swiped_at'], 1000)
+        );
+    }
+
+    $query = "INSERT IGNORE INTO user_song_swipes (username, songid, liked, title, artist, client_event_id, swipe_time) VALUES "
+        . implode(", ", $rows);
+
+    try {
+        $stmt = $conn->prepare($query);
+        $stmt->execute($params);
+        echo json_encode(["received" => count($swipes), "inserted" => $stmt->rowCount()]);
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error saving swipes: " . $e->getMessage();
+    }
+}
+
 // Get all swiped song IDs for a user (for recommendations)
 if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_swiped_song_ids' && isset($_GET['username'])) {
     $username = $_GET['username'];
@@ -44,21 +99,584 @@ if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['act
     }
 }
 
+// Incremental swipe-history sync. Returns only swipes after the client's cursor
+// (user_song_swipes.id high-water mark) and after the latest playlist boundary,
+// using the (username, id) index, so the cost does not grow with the history.
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_swiped_song_ids_since' && isset($_GET['username'])) {
+    $username = $_GET['username'];
+    $cursor = isset($_GET['cursor']) ? max(0, (int) $_GET['cursor']) : 0;
+    $limit = isset($_GET['limit']) ? max(1, min(1000, (int) $_GET['limit'])) : 1000;
+
+    try {
+        // Latest playlist boundary: swipes up to its last_swipe_id are already used
+        $stmt = $conn->prepare("SELECT id, last_swipe_id FROM user_playlists WHERE username = ? ORDER BY id DESC LIMIT 1");
+        $stmt->execute([$username]);
+        $playlist = $stmt->fetch(PDO::FETCH_ASSOC);
+        $boundary = $playlist ? (int) $playlist['id'] : 0;
+        $from = max($cursor, $playlist ? (int) $playlist['last_swipe_id'] : 0);
+
+        $stmt = $conn->prepare("SELECT id, songid FROM user_song_swipes
+                                WHERE username = ? AND id > ?
+                                ORDER BY id LIMIT " . ($limit + 1));
+        $stmt->execute([$username, $from]);
+        $rows = $stmt->fetchAll(PDO::FETCH_ASSOC);
+        $hasMore = count($rows) > $limit;
+        if ($hasMore) array_pop($rows);
+
+        echo json_encode([
+            "boundary" => $boundary,
+            "cursor" => count($rows) > 0 ? (int) end($rows)['id'] : $from,
+            "songids" => array_column($rows, 'songid'),
+            "has_more" => $hasMore
+        ]);
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching swipe history: " . $e->getMessage();
+    }
+}
+
+// Get audio features for several tracks at once (client batches up to 100 IDs per call)
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'audio_features_by_ids' && isset($_GET['ids'])) {
+    $ids = array_values(array_unique(array_filter(explode(',', $_GET['ids']), function ($id) {
+        return preg_match('/^[0-9A-Za-z]{22}$/', $id) === 1;   // Spotify track IDs are 22 base-62 chars
+    })));
+
+    if (count($ids) === 0 || count($ids) > 100) {
+        http_response_code(400);
+        echo "Expected 1-100 track IDs";
+        exit;
+    }
+
+    $placeholders = implode(',', array_fill(0, count($ids), '?'));
+    $query = "SELECT id, energy, `key`, loudness, mode, speechiness, acousticness,
+                     instrumentalness, liveness, valence, tempo
+              FROM tracks WHERE id IN ($placeholders)";
+
+    try {
+        $stmt = $conn->prepare($query);
+        $stmt->execute($ids);
+        // Audio features of a track never change: cache for a week, then revalidate
+        send_json_cached(json_encode($stmt->fetchAll(PDO::FETCH_ASSOC), JSON_NUMERIC_CHECK), "public, max-age=604800");
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching audio features: " . $e->getMessage();
+    }
+}
+
+// Feature-catalogue delta sync: rows changed after the (catalogue_version, id) cursor,
+// one keyset page at a time. Deleted tracks are returned as tombstones (deleted = 1).
+// The first page of a sync (after_id "0", never a track ID) is strictly newer than
+// since_version: the client already holds every row of its own version.
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'feature_catalogue_delta' && isset($_GET['since_version'])) {
+    $since = (int) $_GET['since_version'];
+    $afterId = isset($_GET['after_id']) ? $_GET['after_id'] : '0';
+    $limit = isset($_GET['limit']) ? max(1, min(5000, (int) $_GET['limit'])) : 5000;
+
+    $firstPage = $afterId === '0' || $afterId === '';
+    $where = $firstPage ? "catalogue_version > ?" : "catalogue_version > ? OR (catalogue_version = ? AND id > ?)";
+    $query = "SELECT id, catalogue_version, deleted, energy, `key`, loudness, mode, speechiness,
+                     acousticness, instrumentalness, liveness, valence, tempo
+              FROM tracks
+              WHERE $where
+              ORDER BY catalogue_version, id
+              LIMIT " . ($limit + 1);
+
+    try {
+        $stmt = $conn->prepare($query);
+        $stmt->execute($firstPage ? [$since] : [$since, $since, $afterId]);
+        $rows = $stmt->fetchAll(PDO::FETCH_ASSOC);
+        $hasMore = count($rows) > $limit;
+        if ($hasMore) array_pop($rows);
+        echo json_encode(["rows" => $rows, "has_more" => $hasMore]);
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching catalogue delta: " . $e->getMessage();
+    }
+}
+
+// Profile-image renditions. Every picture is stored as thumb / medium / full JPEGs,
+// each addressed by the SHA-1 of its bytes; profile_images maps a user to the
+// current hashes. Blobs never change, so clients may cache them forever and only
+// refresh the small metadata row to notice a new picture.
+const PROFILE_RENDITIONS = ["thumb" => 96, "medium" => 320, "full" => 1080];
+
+function store_profile_renditions($conn, $username, $bytes) {
+    $source = imagecreatefromstring($bytes);
+    if ($source === false) return null;
+
+    $hashes = [];
+    foreach (PROFILE_RENDITIONS as $name => $edge) {
+        $w = imagesx($source);
+        $h = imagesy($source);
+        $scale = min(1, $edge / max($w, $h));
+        $image = $scale < 1 ? imagescale($source, (int) round($w * $scale), (int) round($h * $scale)) : $source;
+
+        ob_start();
+        imagejpeg($image, null, $name === "thumb" ? 75 : 85);
+        $jpeg = ob_get_clean();
+        if ($image !== $source) imagedestroy($image);
+
+        $hash = sha1($jpeg);
+        $stmt = $conn->prepare("INSERT IGNORE INTO image_blobs (hash, data) VALUES (?, ?)");
+        $stmt->execute([$hash, $jpeg]);
+        $hashes[$name] = $hash;
+    }
+    imagedestroy($source);
+
+    $stmt = $conn->prepare("REPLACE INTO profile_images (username, thumb_hash, medium_hash, full_hash) VALUES (?, ?, ?, ?)");
+    $stmt->execute([$username, $hashes["thumb"], $hashes["medium"], $hashes["full"]]);
+    return $hashes;
+}
+
+// Rendition hashes for a user, or null if they have no picture. Pictures uploaded
+// before renditions existed are converted on first request.
+function profile_image_meta($conn, $username) {
+    $stmt = $conn->prepare("SELECT thumb_hash AS thumb, medium_hash AS medium, full_hash AS full FROM profile_images WHERE username = ?");
+    $stmt->execute([$username]);
+    $meta = $stmt->fetch(PDO::FETCH_ASSOC);
+    if ($meta) return $meta;
+
+    $stmt = $conn->prepare("SELECT image_data FROM users WHERE username = ?");
+    $stmt->execute([$username]);
+    $legacy = $stmt->fetchColumn();
+    return $legacy ? store_profile_renditions($conn, $username, base64_decode($legacy)) : null;
+}
+
+// Sends a JSON body with validators. The ETag is the hash of the body; Last-Modified
+// (unix time, when the data has one) also allows If-Modified-Since. A conditional
+// request that still matches is answered with an empty 304 and the client keeps
+// its cached copy.
+function send_json_cached($body, $cacheControl, $lastModified = null) {
+    $etag = "\"" . sha1($body) . "\"";
+    header("ETag: " . $etag);
+    header("Cache-Control: " . $cacheControl);
+    if ($lastModified !== null) {
+        header("Last-Modified: " . gmdate("D, d M Y H:i:s", $lastModified) . " GMT");
+    }
+
+    if (isset($_SERVER['HTTP_IF_NONE_MATCH'])) {
+        $notModified = in_array($etag, array_map('trim', explode(',', $_SERVER['HTTP_IF_NONE_MATCH'])), true);
+    } else {
+        $notModified = $lastModified !== null && isset($_SERVER['HTTP_IF_MODIFIED_SINCE'])
+            && strtotime($_SERVER['HTTP_IF_MODIFIED_SINCE']) >= $lastModified;
+    }
+    if ($notModified) {
+        http_response_code(304);
+        return;
+    }
+    header("Content-Type: application/json");
+    echo $body;
+}
+
+// Rendition hashes for a user (a few dozen bytes)
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_profile_image_meta' && isset($_GET['username'])) {
+    $username = $_GET['username'];
+
+    try {
+        $meta = profile_image_meta($conn, $username);
+        header("Cache-Control: no-cache");
+        echo json_encode($meta ? $meta : new stdClass());
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching profile image: " . $e->getMessage();
+    }
+}
+
+// Raw JPEG bytes of one rendition, at an immutable content-hash URL
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'profile_image_blob' && isset($_GET['hash'])) {
+    $hash = $_GET['hash'];
+    if (preg_match('/^[0-9a-f]{40}$/', $hash) !== 1) {
+        http_response_code(400);
+        echo "Invalid hash";
+        exit;
+    }
+
+    if (isset($_SERVER['HTTP_IF_NONE_MATCH']) && trim($_SERVER['HTTP_IF_NONE_MATCH'], '"') === $hash) {
+        http_response_code(304);
+        exit;
+    }
+
+    try {
+        $stmt = $conn->prepare("SELECT data FROM image_blobs WHERE hash = ?");
+        $stmt->execute([$hash]);
+        $data = $stmt->fetchColumn();
+        if ($data === false) {
+            http_response_code(404);
+            exit;
+        }
+        header("Content-Type: image/jpeg");
+        header("Content-Length: " . strlen($data));
+        header("Cache-Control: public, max-age=31536000, immutable");
+        header("ETag: \"" . $hash . "\"");
+        echo $data;
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching image: " . $e->getMessage();
+    }
+}
+
+// Resumable profile-photo upload. The client streams the (already downscaled) JPEG
+// as raw request bodies of at most 256 KB, each tagged with its byte offset; the
+// partial file lives in the temp dir until every byte has arrived.
+function upload_temp_path($uploadId) {
+    return sys_get_temp_dir() . "/groover_upload_" . $uploadId . ".part";
+}
+
+function valid_upload_id($uploadId) {
+    return preg_match('/^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$/', $uploadId) === 1;
+}
+
+// How many bytes of an upload the server already holds (0 for a new upload)
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'upload_profile_image_status' && isset($_GET['upload_id'])) {
+    if (!valid_upload_id($_GET['upload_id'])) {
+        http_response_code(400);
+        echo "Invalid upload id";
+        exit;
+    }
+    $path = upload_temp_path($_GET['upload_id']);
+    clearstatcache(true, $path);
+    echo json_encode(["received" => file_exists($path) ? filesize($path) : 0]);
+}
+
+// Append one chunk; a chunk whose offset does not match the stored size is
+// rejected with 409 and the current size, so the client can continue from there.
+// The part file is locked while its size is checked and the chunk appended, so two
+// retries of the same chunk cannot both pass the offset check and append twice.
+if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_GET['action']) && $_GET['action'] === 'upload_profile_image_chunk'
+        && isset($_GET['upload_id']) && isset($_GET['username']) && isset($_GET['offset']) && isset($_GET['total'])) {
+    $uploadId = $_GET['upload_id'];
+    $username = $_GET['username'];
+    $offset = (int) $_GET['offset'];
+    $total = (int) $_GET['total'];
+    $length = isset($_SERVER['CONTENT_LENGTH']) ? (int) $_SERVER['CONTENT_LENGTH'] : 0;
+
+    if (!valid_upload_id($uploadId) || $total <= 0 || $total > 5 * 1024 * 1024) {
+        http_response_code(400);
+        echo "Invalid upload";
+        exit;
+    }
+    if ($offset < 0 || $length <= 0 || $offset + $length > $total) {
+        http_response_code(400);
+        echo "Invalid chunk";
+        exit;
+    }
+
+    $path = upload_temp_path($uploadId);
+    $out = fopen($path, "c+b");
+    if ($out === false || !flock($out, LOCK_EX)) {
+        http_response_code(500);
+        echo "Error opening upload";
+        exit;
+    }
+    $received = fstat($out)['size'];
+    if ($offset !== $received) {
+        flock($out, LOCK_UN);
+        fclose($out);
+        http_response_code(409);
+        echo json_encode(["received" => $received]);
+        exit;
+    }
+
+    // Stream the body straight to disk; never hold the chunk in a PHP string
+    $in = fopen("php://input", "rb");
+    fseek($out, 0, SEEK_END);
+    $written = stream_copy_to_stream($in, $out, $length);
+    fclose($in);
+    if ($written !== $length) {
+        // Short body (client went away): drop the partial chunk, keep the clean prefix
+        ftruncate($out, $received);
+        flock($out, LOCK_UN);
+        fclose($out);
+        http_response_code(400);
+        echo "Incomplete chunk";
+        exit;
+    }
+    fflush($out);
+    $received += $written;
+
+    if ($received === $total) {
+        try {
+            $bytes = file_get_contents($path);
+            $stmt = $conn->prepare("UPDATE users SET image_data = ? WHERE username = ?");
+            $stmt->execute([base64_encode($bytes), $username]);
+            store_profile_renditions($conn, $username, $bytes);
+            unlink($path);
+        } catch (PDOException $e) {
+            flock($out, LOCK_UN);
+            fclose($out);
+            http_response_code(500);
+            echo "Error saving profile image: " . $e->getMessage();
+            exit;
+        }
+    }
+    flock($out, LOCK_UN);
+    fclose($out);
+    echo json_encode(["received" => $received]);
+}
+
+// Newest swipe ID of a user: the playlist exporter fixes it as its boundary when
+// an export starts, so swipes made during the export are not marked as used.
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_last_swipe_id' && isset($_GET['username'])) {
+    try {
+        $stmt = $conn->prepare("SELECT COALESCE(MAX(id), 0) FROM user_song_swipes WHERE username = ?");
+        $stmt->execute([$_GET['username']]);
+        echo json_encode(["last_swipe_id" => (int) $stmt->fetchColumn()]);
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching last swipe: " . $e->getMessage();
+    }
+}
+
 // Clear swipes for a user (called after playlist creation)
 if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'clear_user_swipes' && isset($_GET['username'])) {
     $username = $_GET['username'];
     
     // Instead of deleting, we'll mark these swipes as included in a playlist
     // by recording the playlist creation time
-    $query = "INSERT INTO user_playlists (username, created_at) VALUES (?, CURRENT_TIMESTAMP)";
+    // and the last swipe it covers (the boundary used by get_swiped_song_ids_since).
+    // The exporter passes the boundary it fixed at start; without one, all swipes so far.
+    if (isset($_GET['last_swipe_id'])) {
+        $query = "INSERT INTO user_playlists (username, created_at, last_swipe_id)
+                  SELECT ?, CURRENT_TIMESTAMP, LEAST(?, COALESCE(MAX(id), 0)) FROM user_song_swipes WHERE username = ?";
+        $params = [$username, max(0, (int) $_GET['last_swipe_id']), $username];
+    } else {
+        $query = "INSERT INTO user_playlists (username, created_at, last_swipe_id)
+                  SELECT ?, CURRENT_TIMESTAMP, COALESCE(MAX(id), 0) FROM user_song_swipes WHERE username = ?";
+        $params = [$username, $username];
+    }
     
     try {
         $stmt = $conn->prepare($query);
-        $stmt->execute([$username]);
+        $stmt->execute($params);
         echo "Swipes marked as used in playlist";
     } catch (PDOException $e) {
         http_response_code(500);
         echo "Error clearing swipes: " . $e->getMessage();
     }
 }
+
+// Username typeahead: users whose name starts with the prefix, in name order,
+// one keyset page after the `after` username. Both the prefix LIKE and the
+// username > ? range are served by the username index, so the cost depends on
+// the page size, not on the number of users.
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'search_users') {
+    // Both segments arrive behind a "~" mark so an empty value is still a path segment
+    $prefix = isset($_GET['prefix']) ? preg_replace('/^~/', '', $_GET['prefix']) : '';
+    $after = isset($_GET['after']) ? preg_replace('/^~/', '', $_GET['after']) : '';
+    $limit = isset($_GET['limit']) ? max(1, min(50, (int) $_GET['limit'])) : 20;
+
+    $query = "SELECT username FROM users
+              WHERE username LIKE ? AND username > ?
+              ORDER BY username
+              LIMIT " . ($limit + 1);
+
+    try {
+        $stmt = $conn->prepare($query);
+        $stmt->execute([addcslashes($prefix, '\\%_') . '%', $after]);
+        $names = $stmt->fetchAll(PDO::FETCH_COLUMN);
+        $hasMore = count($names) > $limit;
+        if ($hasMore) array_pop($names);
+
+        // Short freshness: a repeated prefix (backspace, reopened screen) needs no round trip
+        send_json_cached(json_encode([
+            "users" => $names,
+            "cursor" => count($names) > 0 ? end($names) : $after,
+            "has_more" => $hasMore
+        ]), "public, max-age=60");
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error searching users: " . $e->getMessage();
+    }
+}
+
+// Liked songs, newest first, one keyset page before the "<unix swipe time>-<row id>"
+// cursor ("0" = first page). Served from idx_username_liked_time, so a page costs
+// the same however long the like history is.
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_liked_songs_page' && isset($_GET['username'])) {
+    $username = $_GET['username'];
+    $before = isset($_GET['before']) ? $_GET['before'] : '0';
+    $limit = isset($_GET['limit']) ? max(1, min(100, (int) $_GET['limit'])) : 50;
+
+    $where = "";
+    $params = [$username];
+    if (preg_match('/^(\d+)-(\d+)$/', $before, $m)) {
+        $where = "AND (swipe_time < FROM_UNIXTIME(?) OR (swipe_time = FROM_UNIXTIME(?) AND id < ?))";
+        array_push($params, (int) $m[1], (int) $m[1], (int) $m[2]);
+    }
+
+    $query = "SELECT id, songid, title, artist, UNIX_TIMESTAMP(swipe_time) AS swiped_at
+              FROM user_song_swipes
+              WHERE username = ? AND liked = 1 $where
+              ORDER BY swipe_time DESC, id DESC
+              LIMIT " . ($limit + 1);
+
+    try {
+        $stmt = $conn->prepare($query);
+        $stmt->execute($params);
+        $rows = $stmt->fetchAll(PDO::FETCH_ASSOC);
+        $hasMore = count($rows) > $limit;
+        if ($hasMore) array_pop($rows);
+
+        $last = end($rows);
+        send_json_cached(json_encode([
+            "songs" => $rows,
+            "cursor" => $last ? $last['swiped_at'] . "-" . $last['id'] : $before,
+            "has_more" => $hasMore
+        ]), "private, max-age=0");
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching liked songs: " . $e->getMessage();
+    }
+}
+
+// Everything a profile screen shows in one response: bio, picture rendition hashes
+// and a like summary (count + cursor of the newest like). max-age=0 with a day of
+// stale-while-revalidate: clients show their cached copy at once and revalidate it
+// with If-None-Match, so an unchanged profile is answered with an empty 304.
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_profile' && isset($_GET['username'])) {
+    $username = $_GET['username'];
+
+    try {
+        $stmt = $conn->prepare("SELECT bio FROM users WHERE username = ?");
+        $stmt->execute([$username]);
+        $bio = $stmt->fetchColumn();
+        if ($bio === false) {
+            http_response_code(404);
+            echo "Unknown user";
+            exit;
+        }
+
+        $stmt = $conn->prepare("SELECT COUNT(*) FROM user_song_swipes WHERE username = ? AND liked = 1");
+        $stmt->execute([$username]);
+        $likeCount = (int) $stmt->fetchColumn();
+
+        $stmt = $conn->prepare("SELECT id, UNIX_TIMESTAMP(swipe_time) AS swiped_at FROM user_song_swipes
+                                WHERE username = ? AND liked = 1
+                                ORDER BY swipe_time DESC, id DESC LIMIT 1");
+        $stmt->execute([$username]);
+        $latest = $stmt->fetch(PDO::FETCH_ASSOC);
+
+        $body = json_encode([
+            "username" => $username,
+            "bio" => $bio === null ? "" : $bio,
+            "image" => profile_image_meta($conn, $username),
+            "likes" => [
+                "count" => $likeCount,
+                "latest" => $latest ? $latest['swiped_at'] . "-" . $latest['id'] : ""
+            ]
+        ]);
+        send_json_cached($body, "private, max-age=0, stale-while-revalidate=86400");
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching profile: " . $e->getMessage();
+    }
+}
+
+// Stamps the friendship user1 → user2 with user1's next change version. A removal
+// keeps the row as a tombstone (deleted = 1) so delta clients learn about it; readers
+// of the full list must skip deleted rows. Returns the new version.
+function set_friendship($conn, $user1, $user2, $deleted) {
+    try {
+        $conn->beginTransaction();
+        // Locks user1's rows, so concurrent changes of one user get distinct versions
+        $stmt = $conn->prepare("SELECT COALESCE(MAX(change_version), 0) + 1 FROM friends WHERE user1 = ? FOR UPDATE");
+        $stmt->execute([$user1]);
+        $version = (int) $stmt->fetchColumn();
+
+        $stmt = $conn->prepare("INSERT INTO friends (user1, user2, change_version, deleted) VALUES (?, ?, ?, ?)
+                                ON DUPLICATE KEY UPDATE change_version = VALUES(change_version), deleted = VALUES(deleted)");
+        $stmt->execute([$user1, $user2, $version, $deleted]);
+        $conn->commit();
+        return $version;
+    } catch (PDOException $e) {
+        if ($conn->inTransaction()) $conn->rollBack();
+        throw $e;
+    }
+}
+
+// Adds (op=add) or removes (op=remove) one friendship.
+if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_GET['action']) && $_GET['action'] === 'set_friend'
+        && isset($_POST['userone']) && isset($_POST['usertwo']) && isset($_POST['op'])) {
+    $user1 = $_POST['userone'];
+    $user2 = $_POST['usertwo'];
+    $deleted = $_POST['op'] === 'remove' ? 1 : 0;
+
+    if ($user1 === $user2 || ($_POST['op'] !== 'add' && $_POST['op'] !== 'remove')) {
+        http_response_code(400);
+        echo "Invalid friend change";
+        exit;
+    }
+
+    try {
+        echo json_encode(["version" => set_friendship($conn, $user1, $user2, $deleted)]);
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error changing friend: " . $e->getMessage();
+    }
+}
+
+// Legacy friend endpoints (pre-delta clients), kept on the tombstone model: add_friend
+// and remove_friends go through set_friendship, get_friends skips deleted rows. A plain
+// DELETE or INSERT here would leave delta clients with a stale list.
+if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_GET['action'])
+        && ($_GET['action'] === 'add_friend' || $_GET['action'] === 'remove_friends')
+        && isset($_POST['userone']) && isset($_POST['usertwo'])) {
+    if ($_POST['userone'] === $_POST['usertwo']) {
+        http_response_code(400);
+        echo "Invalid friend change";
+        exit;
+    }
+    try {
+        set_friendship($conn, $_POST['userone'], $_POST['usertwo'], $_GET['action'] === 'remove_friends' ? 1 : 0);
+        echo $_GET['action'] === 'add_friend' ? "Friend added" : "Friend removed";
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error changing friend: " . $e->getMessage();
+    }
+}
+
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_friends' && isset($_GET['username'])) {
+    try {
+        $stmt = $conn->prepare("SELECT user2 FROM friends WHERE user1 = ? AND deleted = 0 ORDER BY user2");
+        $stmt->execute([$_GET['username']]);
+        send_json_cached(json_encode($stmt->fetchAll(PDO::FETCH_ASSOC)), "private, max-age=0");
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching friends: " . $e->getMessage();
+    }
+}
+
+// Friendship changes of a user after the (since version, after friend) cursor, in
+// version order. Versions start at 1, so since=0 returns the whole list. Served from
+// idx_user1_change_version; the cost depends on the changes, not on the list size.
+if ($_SERVER['REQUEST_METHOD'] === 'GET' && isset($_GET['action']) && $_GET['action'] === 'get_friends_delta'
+        && isset($_GET['username']) && isset($_GET['since'])) {
+    $username = $_GET['username'];
+    $since = (int) $_GET['since'];
+    $after = isset($_GET['after']) ? $_GET['after'] : '';
+    $limit = isset($_GET['limit']) ? max(1, min(1000, (int) $_GET['limit'])) : 500;
+
+    $query = "SELECT user2 AS friend, deleted, change_version AS version
+              FROM friends
+              WHERE user1 = ? AND (change_version > ? OR (change_version = ? AND user2 > ?))
+              ORDER BY change_version, user2
+              LIMIT " . ($limit + 1);
+
+    try {
+        $stmt = $conn->prepare($query);
+        $stmt->execute([$username, $since, $since, $after]);
+        $rows = $stmt->fetchAll(PDO::FETCH_ASSOC);
+        $hasMore = count($rows) > $limit;
+        if ($hasMore) array_pop($rows);
+
+        $changes = [];
+        foreach ($rows as $row) {
+            $changes[] = ["friend" => $row['friend'], "deleted" => (int) $row['deleted'], "version" => (int) $row['version']];
+        }
+        send_json_cached(json_encode(["changes" => $changes, "has_more" => $hasMore]), "private, max-age=0");
+    } catch (PDOException $e) {
+        http_response_code(500);
+        echo "Error fetching friend changes: " . $e->getMessage();
+    }
+}
 ?> 
\ No newline at end of file
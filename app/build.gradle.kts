@@ -35,6 +35,10 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // Benchmarks only run on request: ./gradlew test -Dbenchmarks=true
+        unitTests.all { it.systemProperty("benchmarks", System.getProperty("benchmarks") ?: "false") }
+    }
 }
 
 dependencies {
@@ -43,11 +47,13 @@ dependencies {
     implementation(libs.material)
 
     testImplementation(libs.junit)
+    testImplementation("org.json:json:20240303")   // real org.json for JVM benchmarks
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("androidx.recyclerview:recyclerview:1.3.2")
     implementation("com.spotify.android:auth:1.2.5")
     implementation("com.android.volley:volley:1.2.1")
+    implementation("com.google.code.gson:gson:2.11.0")
     implementation("com.github.yuyakaido:cardstackview:2.3.4")
     implementation("com.squareup.picasso:picasso:2.71828")
     implementation("androidx.cardview:cardview:1.0.0")
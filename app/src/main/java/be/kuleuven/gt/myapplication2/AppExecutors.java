@@ -0,0 +1,54 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Shared executors for work that must stay off the UI thread.
+ * • io()   – small bounded pool for disk caches and file persistence
+ * • main() – posts results back onto the UI thread
+ */
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class AppExecutors {
+
+    private static final int IO_THREADS = 2;
+
+    private static final ExecutorService IO;
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    static {
+        AtomicInteger n = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                IO_THREADS, IO_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "groover-io-" + n.incrementAndGet());
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);   // idle app keeps no I/O threads alive
+        IO = pool;
+
+        DebugStats.register("io threads", () ->
+                "active=" + pool.getActiveCount() + " live=" + pool.getPoolSize()
+                        + " queued=" + pool.getQueue().size());
+    }
+
+    private AppExecutors() {}
+
+    public static ExecutorService io() { return IO; }
+
+    public static Executor main() { return MAIN::post; }
+
+    /** Runs the task on the UI thread after the given delay. */
+    public static void mainDelayed(Runnable task, long delayMs) { MAIN.postDelayed(task, delayMs); }
+
+    /** Removes a previously posted UI-thread task. */
+    public static void cancelMain(Runnable task) { MAIN.removeCallbacks(task); }
+}
@@ -0,0 +1,141 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Client-side batcher for audio-feature lookups.
+ * • Requests made within a short window are coalesced into one
+ *   audio_features_by_ids call (at most MAX_IDS_PER_CALL IDs each)
+ * • Every caller gets its own track’s features back (null if unknown)
+ * • Feature vectors never change for a track, so results are kept in an
+ *   ID-keyed LRU and later requests are answered without a round trip
+ * All methods must be called on the UI thread; callbacks run there too.
+ */
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.android.volley.Request;
+import com.android.volley.toolbox.JsonArrayRequest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class AudioFeaturesBatcher {
+
+    private static final String URL = "https://studev.groept.be/api/a24pt103/audio_features_by_ids/";
+
+    private static final long BATCH_WINDOW_MS  = 30;
+    private static final int  MAX_IDS_PER_CALL = 100;
+    private static final int  CACHE_ENTRIES    = 5_000;
+
+    /** Receives the features for one track, or null when the backend has none. */
+    public interface Callback {
+        void onFeatures(MoodSelector.MoodPreset features);
+    }
+
+    private static volatile AudioFeaturesBatcher instance;
+
+    private final Context appContext;
+    private final LruCache<String, MoodSelector.MoodPreset> cache = new LruCache<>(CACHE_ENTRIES);
+    private final LinkedHashMap<String, List<Callback>> waiting = new LinkedHashMap<>();
+    private final Runnable flushTask = this::flush;
+    private boolean flushScheduled = false;
+    private int calls = 0, cacheHits = 0;
+
+    public static AudioFeaturesBatcher get(Context context) {
+        if (instance == null) {
+            synchronized (AudioFeaturesBatcher.class) {
+                if (instance == null) instance = new AudioFeaturesBatcher(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private AudioFeaturesBatcher(Context appContext) {
+        this.appContext = appContext;
+        DebugStats.register("audio features", () ->
+                "cached=" + cache.size() + ", hits=" + cacheHits + ", batched calls=" + calls);
+    }
+
+    /** Returns cached features immediately, otherwise joins the next batch. */
+    public void request(String trackId, Callback callback) {
+        MoodSelector.MoodPreset cached = cache.get(trackId);
+        if (cached != null) {
+            cacheHits++;
+            callback.onFeatures(cached);
+            return;
+        }
+
+        List<Callback> callbacks = waiting.get(trackId);
+        if (callbacks == null) {
+            callbacks = new ArrayList<>();
+            waiting.put(trackId, callbacks);
+        }
+        callbacks.add(callback);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            AppExecutors.mainDelayed(flushTask, BATCH_WINDOW_MS);
+        }
+    }
+
+    /** Sends everything collected during the window, split into maximum-size calls. */
+    private void flush() {
+        flushScheduled = false;
+        List<String> ids = new ArrayList<>(waiting.keySet());
+        Map<String, List<Callback>> batch = new HashMap<>(waiting);
+        waiting.clear();
+
+        for (int start = 0; start < ids.size(); start += MAX_IDS_PER_CALL) {
+            List<String> chunk = ids.subList(start, Math.min(ids.size(), start + MAX_IDS_PER_CALL));
+            send(new ArrayList<>(chunk), batch);
+        }
+    }
+
+    private void send(List<String> chunk, Map<String, List<Callback>> callbacks) {
+        calls++;
+        String url = URL + String.join(",", chunk);
+
+        JsonArrayRequest request = new JsonArrayRequest(
+                Request.Method.GET, url, null,
+                response -> {
+                    Map<String, MoodSelector.MoodPreset> byId = new HashMap<>();
+                    for (int i = 0; i < response.length(); i++) {
+                        try {
+                            JSONObject o = response.getJSONObject(i);
+                            MoodSelector.MoodPreset f = parseFeatures(o);
+                            byId.put(o.getString("id"), f);
+                            cache.put(o.getString("id"), f);
+                        } catch (JSONException e) {
+                            Log.w("AUDIO_FEATURES", "Skipping malformed row", e);
+                        }
+                    }
+                    for (String id : chunk) deliver(callbacks.get(id), byId.get(id));
+                },
+                error -> {
+                    Log.e("AUDIO_FEATURES", "Batch of " + chunk.size() + " failed", error);
+                    for (String id : chunk) deliver(callbacks.get(id), null);
+                });
+
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private static void deliver(List<Callback> callbacks, MoodSelector.MoodPreset features) {
+        if (callbacks == null) return;
+        for (Callback cb : callbacks) cb.onFeatures(features);
+    }
+
+    /** Maps one audio_features row onto a MoodPreset (same 10 fields). */
+    static MoodSelector.MoodPreset parseFeatures(JSONObject o) throws JSONException {
+        return new MoodSelector.MoodPreset(
+                o.getDouble("energy"), o.getInt("key"), o.getDouble("loudness"),
+                o.getInt("mode"), o.getDouble("speechiness"), o.getDouble("acousticness"),
+                o.getDouble("instrumentalness"), o.getDouble("liveness"),
+                o.getDouble("valence"), o.getDouble("tempo"));
+    }
+}
@@ -0,0 +1,53 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Batch size for queues whose server refuses a whole batch because of one bad item.
+ * • a refused batch is retried as its first half, and so on, until the bad item
+ *   is sent alone and can be dropped
+ * • the reduced size is kept until every item of the refused batch has been
+ *   sent or dropped; going back to the full size after a good half would only
+ *   resend the bad item in a full batch again
+ * Batches must be taken from the front of a FIFO queue. Not thread-safe; owners
+ * call it from the UI thread.
+ */
+final class BatchBisector {
+
+    private final int maxBatch;
+    private int limit;
+    private int suspect = 0;     // items at the front of the queue that include a refused one
+
+    BatchBisector(int maxBatch) {
+        this.maxBatch = maxBatch;
+        this.limit    = maxBatch;
+    }
+
+    /** Largest batch to send next. */
+    int limit() {
+        return limit;
+    }
+
+    /** The server accepted a batch of size items. */
+    void onAccepted(int size) {
+        suspect -= size;
+        if (suspect <= 0) reset();
+    }
+
+    /**
+     * The server refused a whole batch of size items; returns true if it was a
+     * single item, which the caller must drop, false if the batch was halved.
+     */
+    boolean onRefused(int size) {
+        if (size <= 1) {
+            reset();
+            return true;
+        }
+        suspect = size;
+        limit   = size / 2;
+        return false;
+    }
+
+    private void reset() {
+        suspect = 0;
+        limit   = maxBatch;
+    }
+}
@@ -0,0 +1,177 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Feed pipeline behind SongCardAdapter.
+ * Holds the queue of recommended (still unresolved) track IDs and keeps
+ * at least `lookahead` fully resolved cards ahead of the top card:
+ * • details are fetched in the background in batches of up to 50 IDs; IDs a
+ *   failed lookup left unresolved go back to the queue and are retried with
+ *   exponential backoff, so a failed first batch does not leave the deck empty
+ * • IDs already in the SwipedHistory are dropped before any lookup
+ * • only Songs that came back from Spotify (URI, cover, preview) reach the adapter
+ * • artwork for the next few cards is prefetched at card size (CoverArt)
+ * • previews of the top and next card are pre-buffered (PreviewPlayer)
+ * • starting a new feed (mood change) discards any in-flight batch
+ * All methods must be called on the UI thread.
+ */
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+public class CardFeed {
+
+    public static final int DEFAULT_LOOKAHEAD = 10;
+
+    private static final long RETRY_BASE_MS = 2_000;
+    private static final long RETRY_MAX_MS  = 60_000;
+
+    /** UI callbacks for feed state changes. */
+    public interface Listener {
+        /** Queue exhausted and the deck never received a card. */
+        void onFeedEmpty();
+        /** A batch could not be resolved; it stays queued and is retried with backoff. */
+        void onBatchFailed();
+    }
+
+    private final Context context;
+    private final SongCardAdapter adapter;
+    private final IntSupplier topPosition;
+    private final Listener listener;
+    private final int lookahead;
+    private final int batchSize;
+
+    private final Deque<String> pendingIds = new ArrayDeque<>();
+    private final Runnable retryTask = this::topUp;
+    private String spotifyToken;
+    private boolean batchInFlight = false;
+    private int failedBatches = 0;                       // consecutive; drives the retry delay
+    private int generation = 0;
+
+    public CardFeed(Context context, SongCardAdapter adapter, IntSupplier topPosition,
+                    int lookahead, Listener listener) {
+        this.context     = context.getApplicationContext();
+        this.adapter     = adapter;
+        this.topPosition = topPosition;
+        this.listener    = listener;
+        this.lookahead   = lookahead;
+        this.batchSize   = SpotifyTrackRepository.MAX_IDS_PER_CALL;
+    }
+
+    /** Replaces the feed with a new recommendation list (adapter is expected to be cleared). */
+    public void start(List<Song> recommendations, String spotifyToken) {
+        generation++;
+        batchInFlight     = false;
+        failedBatches     = 0;
+        this.spotifyToken = spotifyToken;
+        AppExecutors.cancelMain(retryTask);
+
+        pendingIds.clear();
+        for (Song s : SwipedHistory.get(context).filterUnswiped(recommendations)) pendingIds.add(s.getId());
+
+        if (pendingIds.isEmpty()) listener.onFeedEmpty();
+        else topUp();
+    }
+
+    /** Call after every swipe so the lookahead window is refilled. */
+    public void onTopPositionChanged() {
+        prefetchArtwork();
+        prebufferPreviews();
+        topUp();
+    }
+
+    /** Cards resolved but not yet swiped. */
+    public int cardsAhead() {
+        return adapter.getItemCount() - topPosition.getAsInt();
+    }
+
+    public boolean hasPendingIds() { return !pendingIds.isEmpty(); }
+
+    private void prefetchArtwork() {
+        CoverArt.prefetch(context, adapter.getSongList(), topPosition.getAsInt());
+    }
+
+    /** Previews of the top card and the one below it. */
+    private void prebufferPreviews() {
+        List<Song> songs = adapter.getSongList();
+        int top = topPosition.getAsInt();
+        List<String> urls = new ArrayList<>(2);
+        for (int i = top; i < Math.min(songs.size(), top + 2); i++) urls.add(songs.get(i).getPreviewUrl());
+        PreviewPlayer.get(context).prebuffer(urls);
+    }
+
+    /** Starts the next batch if the window is short and no batch is running. */
+    private void topUp() {
+        if (batchInFlight || pendingIds.isEmpty() || cardsAhead() >= lookahead) return;
+
+        List<String> batch = new ArrayList<>();
+        while (batch.size() < batchSize && !pendingIds.isEmpty()) batch.add(pendingIds.poll());
+
+        int batchGeneration = generation;
+        batchInFlight = true;
+
+        SpotifyTrackRepository.get(context).lookup(batch, spotifyToken, (songs, complete) -> {
+            if (batchGeneration != generation) return;   // a newer feed replaced this one
+
+            List<Song> resolved = new ArrayList<>();
+            Set<String> answered = new HashSet<>();
+            for (Song s : songs) {
+                answered.add(s.getId());
+                if (s.getUri() != null && !s.getUri().isEmpty()) resolved.add(s);
+            }
+
+            if (!complete) {
+                // Keep the IDs whose lookup failed for the next attempt, in their order
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    if (!answered.contains(batch.get(i))) pendingIds.addFirst(batch.get(i));
+                }
+                if (resolved.isEmpty()) {
+                    batchInFlight = false;
+                    listener.onBatchFailed();
+                    retryLater();
+                    return;
+                }
+            }
+
+            Log.d("CARD_FEED", "Resolved " + resolved.size() + "/" + batch.size()
+                    + ", " + pendingIds.size() + " IDs left");
+            if (resolved.isEmpty()) {
+                batchInFlight = false;
+                afterBatch(complete);
+                return;
+            }
+            adapter.addData(resolved, () -> {
+                if (batchGeneration != generation) return;
+                batchInFlight = false;                   // cleared only once the cards are counted
+                prefetchArtwork();
+                prebufferPreviews();
+                afterBatch(complete);
+            });
+        });
+    }
+
+    /** Runs once a batch is in the adapter, so cardsAhead() counts it. */
+    private void afterBatch(boolean complete) {
+        if (!complete) {
+            retryLater();                                // some IDs were re-queued
+            return;
+        }
+        failedBatches = 0;
+        if (adapter.getItemCount() == 0 && pendingIds.isEmpty()) listener.onFeedEmpty();
+        else topUp();
+    }
+
+    private void retryLater() {
+        long delay = Math.min(RETRY_MAX_MS, RETRY_BASE_MS << Math.min(failedBatches, 16));
+        failedBatches++;
+        Log.w("CARD_FEED", "Batch lookup failed, retrying in " + delay + " ms");
+        AppExecutors.cancelMain(retryTask);
+        AppExecutors.mainDelayed(retryTask, delay);
+    }
+}
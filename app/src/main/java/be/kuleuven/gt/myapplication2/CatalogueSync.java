@@ -0,0 +1,210 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Keeps the on-device FeatureCatalogue current and feeds it to LocalRecommender.
+ * • at start-up the last synced file is mapped and indexed off the UI thread
+ * • sync() asks feature_catalogue_delta only for rows changed since the local
+ *   catalogue version (keyset pages of PAGE_SIZE), never a full snapshot
+ * • pages are merged into a new file (AtomicFile) every MERGE_ROWS rows, and the
+ *   (version, id) cursor is stored with it: at most MERGE_ROWS rows are held in
+ *   memory, and a failed page resumes from the last merge instead of version 0
+ * • the merged file is re-mapped at once and re-indexed once per sync; the old
+ *   mapping stays valid for in-flight queries
+ * sync() must be called on the UI thread.
+ */
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.volley.Request;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+public final class CatalogueSync {
+
+    private static final String URL = "https://studev.groept.be/api/a24pt103/feature_catalogue_delta/";
+    private static final int PAGE_SIZE = 5_000;
+    private static final int MERGE_ROWS = 50_000;               // rows per file rewrite
+    private static final String FIRST_PAGE = "0";              // not a track ID (those are 22 chars)
+
+    private static volatile CatalogueSync instance;
+
+    private final Context appContext;
+    private final AtomicFile file;
+    private final SharedPreferences cursor;                   // keyset position the file is merged up to
+    private volatile FeatureCatalogue catalogue = FeatureCatalogue.EMPTY;
+    private boolean opened = false;
+    private boolean syncing = false;
+
+    public static CatalogueSync get(Context context) {
+        if (instance == null) {
+            synchronized (CatalogueSync.class) {
+                if (instance == null) instance = new CatalogueSync(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private CatalogueSync(Context appContext) {
+        this.appContext = appContext;
+        this.file       = new AtomicFile(new File(appContext.getFilesDir(), "feature_catalogue.bin"));
+        this.cursor     = appContext.getSharedPreferences("catalogueSync", Context.MODE_PRIVATE);
+        DebugStats.register("feature catalogue", () ->
+                catalogue.size() + " tracks, version " + catalogue.version());
+    }
+
+    public FeatureCatalogue catalogue() { return catalogue; }
+
+    /** Opens the local catalogue (first call only) and pulls any newer rows. */
+    public void sync() {
+        if (syncing) return;
+        syncing = true;
+
+        if (opened) {
+            resume();
+            return;
+        }
+        AppExecutors.io().execute(() -> {
+            try {
+                catalogue = FeatureCatalogue.open(file.getBaseFile());
+                rebuildIndex();
+            } catch (IOException e) {
+                Log.w("CATALOGUE", "Discarding unreadable catalogue", e);
+                file.delete();
+                cursor.edit().clear().commit();
+            }
+            AppExecutors.main().execute(() -> {
+                opened = true;
+                resume();
+            });
+        });
+    }
+
+    /**
+     * Continues after the stored (version, id) cursor. Without one (older file, or
+     * none yet) the catalogue is complete up to its version: FIRST_PAGE asks for
+     * rows strictly newer. A cursor behind the file (crash between the two writes)
+     * only re-fetches rows that merge as no-ops.
+     */
+    private void resume() {
+        long since = catalogue.version();
+        String after = FIRST_PAGE;
+        String storedAfter = cursor.getString("after_id", null);
+        long storedVersion = cursor.getLong("version", Long.MAX_VALUE);
+        if (storedAfter != null && storedVersion <= since) {
+            since = storedVersion;
+            after = storedAfter;
+        }
+        fetchPage(new FeatureCatalogue.Delta(catalogue.version()), since, after, false);
+    }
+
+    /**
+     * Requests the page after the (version, id) cursor and accumulates it into delta;
+     * every MERGE_ROWS rows (and at the end) the delta is merged into the file and
+     * the cursor stored, so memory stays bounded and a failed page loses little.
+     * afterId FIRST_PAGE asks for rows strictly newer than sinceVersion.
+     */
+    private void fetchPage(FeatureCatalogue.Delta delta, long sinceVersion, String afterId, boolean merged) {
+        String url = String.format(Locale.US, "%s%d/%s/%d", URL, sinceVersion, afterId, PAGE_SIZE);
+
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> AppExecutors.io().execute(() -> {
+                    long lastVersion = sinceVersion;
+                    String lastId = afterId;
+                    try {
+                        JSONArray rows = response.getJSONArray("rows");
+                        float[] features = new float[FeatureIndex.DIMS];
+                        for (int i = 0; i < rows.length(); i++) {
+                            JSONObject o = rows.getJSONObject(i);
+                            lastVersion = o.getLong("catalogue_version");
+                            lastId      = o.getString("id");
+                            delta.add(lastId, o.optInt("deleted") == 1 ? null : parseRow(o, features), lastVersion);
+                        }
+                    } catch (JSONException e) {
+                        Log.e("CATALOGUE", "Malformed delta page", e);
+                        finish(merged);
+                        return;
+                    }
+
+                    boolean more = response.optBoolean("has_more") && !lastId.equals(afterId);
+                    boolean mergeNow = delta.size() > 0 && (!more || delta.size() >= MERGE_ROWS);
+                    if (mergeNow && !merge(delta, lastVersion, lastId)) {
+                        finish(merged);
+                        return;
+                    }
+                    boolean mergedSoFar = merged || mergeNow;
+                    if (!more) {
+                        finish(mergedSoFar);
+                        return;
+                    }
+                    FeatureCatalogue.Delta next = mergeNow ? new FeatureCatalogue.Delta(catalogue.version()) : delta;
+                    long nextVersion = lastVersion;
+                    String nextId = lastId;
+                    AppExecutors.main().execute(() -> fetchPage(next, nextVersion, nextId, mergedSoFar));
+                }),
+                error -> {
+                    Log.w("CATALOGUE", "Delta sync failed, keeping version " + catalogue.version(), error);
+                    AppExecutors.io().execute(() -> finish(merged));
+                });
+
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** Ends a sync (I/O thread): re-indexes once if any page was merged. */
+    private void finish(boolean merged) {
+        if (merged) rebuildIndex();
+        AppExecutors.main().execute(() -> syncing = false);
+    }
+
+    private static float[] parseRow(JSONObject o, float[] into) throws JSONException {
+        into[0] = (float) o.getDouble("energy");
+        into[1] = o.getInt("key");
+        into[2] = (float) o.getDouble("loudness");
+        into[3] = o.getInt("mode");
+        into[4] = (float) o.getDouble("speechiness");
+        into[5] = (float) o.getDouble("acousticness");
+        into[6] = (float) o.getDouble("instrumentalness");
+        into[7] = (float) o.getDouble("liveness");
+        into[8] = (float) o.getDouble("valence");
+        into[9] = (float) o.getDouble("tempo");
+        return into;
+    }
+
+    /**
+     * Merges the delta into a new catalogue file, re-maps it and stores the keyset
+     * cursor it reflects (I/O thread). The index is rebuilt once per sync, not here.
+     */
+    private boolean merge(FeatureCatalogue.Delta delta, long lastVersion, String lastId) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            catalogue.writeMerged(delta, out);
+            file.finishWrite(out);
+            catalogue = FeatureCatalogue.open(file.getBaseFile());
+            cursor.edit().putLong("version", lastVersion).putString("after_id", lastId).commit();
+            Log.d("CATALOGUE", "Merged " + delta.size() + " changes, now version " + catalogue.version());
+            return true;
+        } catch (IOException e) {
+            if (out != null) file.failWrite(out);
+            Log.e("CATALOGUE", "Could not apply catalogue delta", e);
+            return false;
+        }
+    }
+
+    private void rebuildIndex() {
+        FeatureCatalogue current = catalogue;
+        if (current.size() == 0) return;
+        float[] raw = new float[current.size() * FeatureIndex.DIMS];
+        current.copyFeatures(raw);
+        LocalRecommender.get().install(FeatureIndex.build(raw, current.size()), current::id);
+    }
+}
@@ -0,0 +1,58 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Album-art requests for the song cards.
+ * • the cover variant is chosen from the card’s image size (see item_song_card.xml),
+ *   so a 300 px Spotify image is used where a 640 px one would only be scaled down
+ * • every request is resized to exactly that size, so the bitmap in Picasso’s memory
+ *   cache is already decoded at display size
+ * • prefetch() warms that cache with the same request keys bind() uses, so the
+ *   next cards show their artwork without a decode on the UI thread
+ */
+import android.content.Context;
+import android.util.DisplayMetrics;
+
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+
+import java.util.List;
+
+public final class CoverArt {
+
+    /** Cards ahead of the top card whose artwork is fetched and decoded early. */
+    public static final int PREFETCH_AHEAD = 5;
+
+    // item_song_card.xml: 20dp card margin + 8dp padding per side, 420dp image height
+    private static final int HORIZONTAL_INSET_DP = 2 * (20 + 8);
+    private static final int IMAGE_HEIGHT_DP     = 420;
+
+    private static int widthPx, heightPx;
+
+    private CoverArt() {}
+
+    /** Picasso request for the song’s cover, sized for the card; null if it has none. */
+    public static RequestCreator request(Context context, Song song) {
+        if (song.getAlbumCoverUrl() == null || song.getAlbumCoverUrl().isEmpty()) return null;
+        measure(context);
+        return Picasso.get()
+                .load(song.coverUrlFor(widthPx))
+                .resize(widthPx, heightPx)
+                .centerCrop();
+    }
+
+    /** Downloads and decodes the covers of songs[from, from + PREFETCH_AHEAD). */
+    public static void prefetch(Context context, List<Song> songs, int from) {
+        int end = Math.min(songs.size(), Math.max(from, 0) + PREFETCH_AHEAD);
+        for (int i = Math.max(from, 0); i < end; i++) {
+            RequestCreator request = request(context, songs.get(i));
+            if (request != null) request.fetch();
+        }
+    }
+
+    private static void measure(Context context) {
+        if (widthPx > 0) return;
+        DisplayMetrics dm = context.getResources().getDisplayMetrics();
+        widthPx  = Math.max(1, Math.round(dm.widthPixels - HORIZONTAL_INSET_DP * dm.density));
+        heightPx = Math.round(IMAGE_HEIGHT_DP * dm.density);
+    }
+}
@@ -0,0 +1,31 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Tiny registry of live debug counters (network, caches, queues…).
+ * Components register a named supplier once; the debug dialog on the
+ * swipe screen (long-press the mood button in debuggable builds) prints them all.
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public final class DebugStats {
+
+    private static final Map<String, Supplier<String>> sources = new LinkedHashMap<>();
+
+    private DebugStats() {}
+
+    /** Registers (or replaces) a named stats source. */
+    public static synchronized void register(String name, Supplier<String> source) {
+        sources.put(name, source);
+    }
+
+    /** Renders every registered source as "name: summary" lines. */
+    public static synchronized String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Supplier<String>> e : sources.entrySet()) {
+            sb.append(e.getKey()).append(": ").append(e.getValue().get()).append('\n');
+        }
+        return sb.length() > 0 ? sb.toString() : "No stats registered.";
+    }
+}
@@ -0,0 +1,303 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Read-only, memory-mapped song-feature catalogue in a versioned columnar file.
+ * • one primitive column per MoodPreset field plus a fixed-width ID column
+ * • rows are sorted by track ID, so lookups are a binary search and deltas are a merge
+ * • opening maps the file and reads the header – nothing is allocated per row;
+ *   accessors read straight from the mapped buffer
+ * File layout (big-endian):
+ *   header  magic "GRVC", format version, catalogue version (long), row count, reserved
+ *   floats  energy, loudness, speechiness, acousticness, instrumentalness,
+ *           liveness, valence, tempo – rows × 4 bytes each
+ *   bytes   key, mode – rows × 1 byte each
+ *   ids     rows × 22 ASCII bytes (Spotify base-62 IDs)
+ * Pure Java (no Android types) so it can be used from any thread.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+public final class FeatureCatalogue {
+
+    public static final int ID_LENGTH = 22;
+
+    private static final int MAGIC          = 0x47525643;   // "GRVC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES   = 24;
+    private static final int FLOAT_COLUMNS  = 8;
+
+    // Float column order inside the file
+    private static final int ENERGY = 0, LOUDNESS = 1, SPEECHINESS = 2, ACOUSTICNESS = 3,
+            INSTRUMENTALNESS = 4, LIVENESS = 5, VALENCE = 6, TEMPO = 7;
+
+    private final ByteBuffer buf;
+    private final long version;
+    private final int rows;
+    private final int keyOffset, modeOffset, idOffset;
+
+    /** An empty catalogue (nothing synced yet). */
+    public static final FeatureCatalogue EMPTY = new FeatureCatalogue(ByteBuffer.allocate(0), -1, 0);
+
+    private FeatureCatalogue(ByteBuffer buf, long version, int rows) {
+        this.buf        = buf;
+        this.version    = version;
+        this.rows       = rows;
+        this.keyOffset  = HEADER_BYTES + FLOAT_COLUMNS * 4 * rows;
+        this.modeOffset = keyOffset + rows;
+        this.idOffset   = modeOffset + rows;
+    }
+
+    /** Maps a catalogue file; returns EMPTY when it does not exist. */
+    public static FeatureCatalogue open(File file) throws IOException {
+        if (!file.exists()) return EMPTY;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+                throw new IOException("Not a feature catalogue: " + file);
+            }
+            if (map.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported catalogue format " + map.getInt(4));
+            }
+            long version = map.getLong(8);
+            int rows = map.getInt(16);
+            long expected = HEADER_BYTES + (long) rows * (FLOAT_COLUMNS * 4 + 2 + ID_LENGTH);
+            if (map.capacity() != expected) {
+                throw new IOException("Truncated catalogue: " + map.capacity() + " of " + expected + " bytes");
+            }
+            return new FeatureCatalogue(map, version, rows);
+        }
+    }
+
+    public long version() { return version; }
+    public int size() { return rows; }
+
+    // --- Column accessors (no allocation) ---
+
+    private float column(int col, int row) { return buf.getFloat(HEADER_BYTES + (col * rows + row) * 4); }
+
+    public float energy(int row)           { return column(ENERGY, row); }
+    public float loudness(int row)         { return column(LOUDNESS, row); }
+    public float speechiness(int row)      { return column(SPEECHINESS, row); }
+    public float acousticness(int row)     { return column(ACOUSTICNESS, row); }
+    public float instrumentalness(int row) { return column(INSTRUMENTALNESS, row); }
+    public float liveness(int row)         { return column(LIVENESS, row); }
+    public float valence(int row)          { return column(VALENCE, row); }
+    public float tempo(int row)            { return column(TEMPO, row); }
+    public int key(int row)                { return buf.get(keyOffset + row); }
+    public int mode(int row)               { return buf.get(modeOffset + row); }
+
+    /** Track ID of a row. Allocates the String – use compareId() while scanning. */
+    public String id(int row) {
+        byte[] bytes = new byte[ID_LENGTH];
+        for (int i = 0; i < ID_LENGTH; i++) bytes[i] = buf.get(idOffset + row * ID_LENGTH + i);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /** Compares a row’s ID with ID_LENGTH bytes of other starting at offset. */
+    int compareId(int row, byte[] other, int offset) {
+        int base = idOffset + row * ID_LENGTH;
+        for (int i = 0; i < ID_LENGTH; i++) {
+            int diff = (buf.get(base + i) & 0xff) - (other[offset + i] & 0xff);
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+
+    /** Row of a track ID, or -1 if it is not in the catalogue. */
+    public int indexOf(String id) {
+        if (id == null || id.length() != ID_LENGTH) return -1;
+        byte[] key = id.getBytes(StandardCharsets.US_ASCII);
+        int lo = 0, hi = rows - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareId(mid, key, 0);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /** Features of one row as a MoodPreset. */
+    public MoodSelector.MoodPreset features(int row) {
+        return new MoodSelector.MoodPreset(
+                energy(row), key(row), loudness(row), mode(row), speechiness(row),
+                acousticness(row), instrumentalness(row), liveness(row), valence(row), tempo(row));
+    }
+
+    /**
+     * Copies every row into dst (row-major, FeatureIndex.DIMS values per row in
+     * MoodPreset order), ready for FeatureIndex.build().
+     */
+    public void copyFeatures(float[] dst) {
+        for (int row = 0; row < rows; row++) {
+            int o = row * FeatureIndex.DIMS;
+            dst[o]     = energy(row);
+            dst[o + 1] = key(row);
+            dst[o + 2] = loudness(row);
+            dst[o + 3] = mode(row);
+            dst[o + 4] = speechiness(row);
+            dst[o + 5] = acousticness(row);
+            dst[o + 6] = instrumentalness(row);
+            dst[o + 7] = liveness(row);
+            dst[o + 8] = valence(row);
+            dst[o + 9] = tempo(row);
+        }
+    }
+
+    // --- Deltas ---
+
+    /**
+     * Changes since a catalogue version, as parallel primitive arrays:
+     * upserted rows carry features, deleted rows only their ID.
+     */
+    public static final class Delta {
+        private byte[] ids = new byte[64 * ID_LENGTH];
+        private float[] features = new float[64 * FeatureIndex.DIMS];
+        private boolean[] deleted = new boolean[64];
+        private int count = 0;
+        long version;
+
+        public Delta(long baseVersion) { this.version = baseVersion; }
+
+        public int size() { return count; }
+        public long version() { return version; }
+
+        /** Adds an upsert (features in MoodPreset order) or, when features is null, a deletion. */
+        public void add(String id, float[] rowFeatures, long rowVersion) {
+            if (id.length() != ID_LENGTH) return;
+            if (count == deleted.length) grow();
+            for (int i = 0; i < ID_LENGTH; i++) ids[count * ID_LENGTH + i] = (byte) id.charAt(i);   // ASCII
+            deleted[count] = rowFeatures == null;
+            if (rowFeatures != null) {
+                System.arraycopy(rowFeatures, 0, features, count * FeatureIndex.DIMS, FeatureIndex.DIMS);
+            }
+            count++;
+            version = Math.max(version, rowVersion);
+        }
+
+        private void grow() {
+            int cap = deleted.length * 2;
+            byte[] newIds = new byte[cap * ID_LENGTH];
+            System.arraycopy(ids, 0, newIds, 0, count * ID_LENGTH);
+            float[] newFeatures = new float[cap * FeatureIndex.DIMS];
+            System.arraycopy(features, 0, newFeatures, 0, count * FeatureIndex.DIMS);
+            boolean[] newDeleted = new boolean[cap];
+            System.arraycopy(deleted, 0, newDeleted, 0, count);
+            ids = newIds; features = newFeatures; deleted = newDeleted;
+        }
+
+        private int compare(int a, int b) {
+            for (int i = 0; i < ID_LENGTH; i++) {
+                int diff = (ids[a * ID_LENGTH + i] & 0xff) - (ids[b * ID_LENGTH + i] & 0xff);
+                if (diff != 0) return diff;
+            }
+            return 0;
+        }
+
+        /** Delta entry positions sorted by ID (later entries win on duplicates). */
+        int[] sortedOrder() {
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) order[i] = i;
+            sort(order, 0, count - 1);
+            // Drop all but the last occurrence of a repeated ID
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (n > 0 && compare(order[n - 1], order[i]) == 0) {
+                    if (order[i] > order[n - 1]) order[n - 1] = order[i];
+                } else {
+                    order[n++] = order[i];
+                }
+            }
+            int[] unique = new int[n];
+            System.arraycopy(order, 0, unique, 0, n);
+            return unique;
+        }
+
+        private void sort(int[] a, int lo, int hi) {
+            while (hi - lo > 16) {
+                int pivot = a[(lo + hi) >>> 1];
+                int i = lo, j = hi;
+                while (i <= j) {
+                    while (compare(a[i], pivot) < 0) i++;
+                    while (compare(a[j], pivot) > 0) j--;
+                    if (i <= j) { int t = a[i]; a[i] = a[j]; a[j] = t; i++; j--; }
+                }
+                if (j - lo < hi - i) { sort(a, lo, j); lo = i; }
+                else                 { sort(a, i, hi); hi = j; }
+            }
+            for (int i = lo + 1; i <= hi; i++) {
+                int v = a[i], j = i - 1;
+                while (j >= lo && compare(a[j], v) > 0) { a[j + 1] = a[j]; j--; }
+                a[j + 1] = v;
+            }
+        }
+    }
+
+    /**
+     * Writes this catalogue with the delta applied to out, as a new file at
+     * delta.version(). A merge of two ID-sorted sequences, column by column.
+     */
+    public void writeMerged(Delta delta, OutputStream out) throws IOException {
+        int[] order = delta.sortedOrder();
+
+        // Merged row sequence: >= 0 → row of this catalogue, < 0 → -(delta entry + 1)
+        int[] merged = new int[rows + order.length];
+        int n = 0, r = 0, d = 0;
+        while (r < rows || d < order.length) {
+            int cmp = r == rows ? 1 : d == order.length ? -1
+                    : compareId(r, delta.ids, order[d] * ID_LENGTH);
+            if (cmp < 0) {
+                merged[n++] = r++;
+            } else {
+                int entry = order[d++];
+                if (!delta.deleted[entry]) merged[n++] = -(entry + 1);
+                if (cmp == 0) r++;                                  // replaced or deleted
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(delta.version);
+        data.writeInt(n);
+        data.writeInt(0);
+
+        // Delta features are in MoodPreset order; map float columns onto them
+        int[] deltaDim = { 0, 2, 4, 5, 6, 7, 8, 9 };
+        for (int col = 0; col < FLOAT_COLUMNS; col++) {
+            for (int i = 0; i < n; i++) {
+                int src = merged[i];
+                data.writeFloat(src >= 0 ? column(col, src)
+                        : delta.features[(-src - 1) * FeatureIndex.DIMS + deltaDim[col]]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int src = merged[i];
+            data.writeByte(src >= 0 ? key(src) : (int) delta.features[(-src - 1) * FeatureIndex.DIMS + 1]);
+        }
+        for (int i = 0; i < n; i++) {
+            int src = merged[i];
+            data.writeByte(src >= 0 ? mode(src) : (int) delta.features[(-src - 1) * FeatureIndex.DIMS + 3]);
+        }
+        for (int i = 0; i < n; i++) {
+            int src = merged[i];
+            if (src >= 0) {
+                int base = idOffset + src * ID_LENGTH;
+                for (int b = 0; b < ID_LENGTH; b++) data.writeByte(buf.get(base + b));
+            } else {
+                data.write(delta.ids, (-src - 1) * ID_LENGTH, ID_LENGTH);
+            }
+        }
+        data.flush();
+    }
+}
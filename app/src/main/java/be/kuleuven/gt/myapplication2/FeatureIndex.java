@@ -0,0 +1,235 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Static KD-tree over normalized 10-dimensional audio-feature vectors.
+ * • Vectors live in one flat float[] (row-major, tree order) – no per-point objects
+ * • The tree is implicit: node = median of its index range, split dimension
+ *   chosen by widest spread, ranges of ≤ LEAF_SIZE points are scanned linearly
+ * • nearest() returns the top-K rows closest to a target, skipping excluded rows
+ * Dimension order matches MoodSelector.MoodPreset. Pure Java, so it can be
+ * benchmarked on the JVM (see FeatureIndexBenchmark).
+ */
+import java.util.function.IntPredicate;
+
+public final class FeatureIndex {
+
+    public static final int DIMS = 10;
+    private static final int LEAF_SIZE = 12;
+
+    // energy, key, loudness, mode, speechiness, acousticness, instrumentalness, liveness, valence, tempo
+    private static final float[] MIN    = { 0f,  0f, -60f, 0f, 0f, 0f, 0f, 0f, 0f,   0f };
+    private static final float[] MAX    = { 1f, 11f,   0f, 1f, 1f, 1f, 1f, 1f, 1f, 250f };
+    private static final float[] WEIGHT = { 1f, .25f,  1f, .5f, 1f, 1f, 1f, 1f, 1f,   1f };
+
+    private final int size;
+    private final float[] points;     // size * DIMS, tree order
+    private final int[] rowOf;        // tree position → original row
+    private final byte[] splitDim;    // per node (indexed by median position)
+
+    /** Per-query scratch: bounded max-heap of the K best candidates. */
+    private static final class Heap {
+        final float[] dist;
+        final int[] pos;
+        int count = 0;
+
+        Heap(int k) { dist = new float[k]; pos = new int[k]; }
+
+        float worst() { return count < dist.length ? Float.POSITIVE_INFINITY : dist[0]; }
+
+        void offer(float d, int p) {
+            if (count < dist.length) {
+                int i = count++;
+                while (i > 0) {                       // sift up
+                    int parent = (i - 1) >>> 1;
+                    if (dist[parent] >= d) break;
+                    dist[i] = dist[parent]; pos[i] = pos[parent];
+                    i = parent;
+                }
+                dist[i] = d; pos[i] = p;
+            } else if (d < dist[0]) {
+                int i = 0;                            // replace root, sift down
+                while (true) {
+                    int l = 2 * i + 1, r = l + 1, big = i;
+                    float bd = d;
+                    if (l < count && dist[l] > bd) { big = l; bd = dist[l]; }
+                    if (r < count && dist[r] > bd) { big = r; }
+                    if (big == i) break;
+                    dist[i] = dist[big]; pos[i] = pos[big];
+                    i = big;
+                }
+                dist[i] = d; pos[i] = p;
+            }
+        }
+    }
+
+    /**
+     * Builds the index from raw (un-normalized) features laid out row-major,
+     * DIMS values per row in MoodPreset order. The input array is not retained.
+     */
+    public static FeatureIndex build(float[] rawFeatures, int rows) {
+        float[] normalized = new float[rows * DIMS];
+        for (int i = 0; i < rows * DIMS; i++) {
+            int d = i % DIMS;
+            normalized[i] = normalize(d, rawFeatures[i]);
+        }
+        return new FeatureIndex(normalized, rows);
+    }
+
+    private FeatureIndex(float[] normalized, int rows) {
+        this.size     = rows;
+        this.splitDim = new byte[rows];
+        int[] perm = new int[rows];
+        for (int i = 0; i < rows; i++) perm[i] = i;
+
+        buildRange(normalized, perm, 0, rows);
+
+        // Copy vectors into tree order so a leaf scan walks contiguous memory
+        this.points = new float[rows * DIMS];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(normalized, perm[i] * DIMS, points, i * DIMS, DIMS);
+        }
+        this.rowOf = perm;
+    }
+
+    public int size() { return size; }
+
+    /** Scales one raw feature value into its weighted [0, weight] range. */
+    static float normalize(int dim, float raw) {
+        float v = (raw - MIN[dim]) / (MAX[dim] - MIN[dim]);
+        if (v < 0f) v = 0f; else if (v > 1f) v = 1f;
+        return v * WEIGHT[dim];
+    }
+
+    /** Normalized query vector for a mood preset / taste profile. */
+    public static float[] queryFor(MoodSelector.MoodPreset p) {
+        float[] raw = {
+                (float) p.energy, p.key, (float) p.loudness, p.mode, (float) p.speechiness,
+                (float) p.acousticness, (float) p.instrumentalness, (float) p.liveness,
+                (float) p.valence, (float) p.tempo };
+        float[] q = new float[DIMS];
+        for (int d = 0; d < DIMS; d++) q[d] = normalize(d, raw[d]);
+        return q;
+    }
+
+    /**
+     * Returns up to k original row numbers nearest to the (normalized) query,
+     * closest first. Rows for which excluded.test(row) is true are skipped.
+     */
+    public int[] nearest(float[] query, int k, IntPredicate excluded) {
+        if (k <= 0 || size == 0) return new int[0];
+        Heap heap = new Heap(Math.min(k, size));
+        search(0, size, query, heap, excluded);
+
+        // Heap order → ascending distance (K is small, insertion sort is enough)
+        int n = heap.count;
+        float[] dist = new float[n];
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            float d = heap.dist[i];
+            int row = rowOf[heap.pos[i]];
+            int j = i - 1;
+            while (j >= 0 && dist[j] > d) {
+                dist[j + 1] = dist[j]; result[j + 1] = result[j];
+                j--;
+            }
+            dist[j + 1] = d; result[j + 1] = row;
+        }
+        return result;
+    }
+
+    private void search(int lo, int hi, float[] q, Heap heap, IntPredicate excluded) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) consider(i, q, heap, excluded);
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int dim = splitDim[mid];
+        float diff = q[dim] - points[mid * DIMS + dim];
+
+        consider(mid, q, heap, excluded);
+        if (diff < 0) {
+            search(lo, mid, q, heap, excluded);
+            if (diff * diff < heap.worst()) search(mid + 1, hi, q, heap, excluded);
+        } else {
+            search(mid + 1, hi, q, heap, excluded);
+            if (diff * diff < heap.worst()) search(lo, mid, q, heap, excluded);
+        }
+    }
+
+    private void consider(int pos, float[] q, Heap heap, IntPredicate excluded) {
+        float worst = heap.worst();
+        int base = pos * DIMS;
+        float dist = 0f;
+        for (int d = 0; d < DIMS; d++) {
+            float diff = q[d] - points[base + d];
+            dist += diff * diff;
+            if (dist >= worst) return;                // early exit: cannot make the top-K
+        }
+        if (excluded != null && excluded.test(rowOf[pos])) return;
+        heap.offer(dist, pos);
+    }
+
+    // --- Construction ---
+
+    private void buildRange(float[] pts, int[] perm, int lo, int hi) {
+        while (hi - lo > LEAF_SIZE) {
+            int dim = widestDim(pts, perm, lo, hi);
+            int mid = (lo + hi) >>> 1;
+            select(pts, perm, lo, hi - 1, mid, dim);
+            splitDim[mid] = (byte) dim;
+
+            // Recurse into the smaller half, loop on the larger to bound stack depth
+            if (mid - lo < hi - mid - 1) {
+                buildRange(pts, perm, lo, mid);
+                lo = mid + 1;
+            } else {
+                buildRange(pts, perm, mid + 1, hi);
+                hi = mid;
+            }
+        }
+    }
+
+    private static int widestDim(float[] pts, int[] perm, int lo, int hi) {
+        float[] min = new float[DIMS], max = new float[DIMS];
+        for (int d = 0; d < DIMS; d++) { min[d] = Float.POSITIVE_INFINITY; max[d] = Float.NEGATIVE_INFINITY; }
+        // Sampling keeps construction O(n log n) on large ranges
+        int step = Math.max(1, (hi - lo) / 256);
+        for (int i = lo; i < hi; i += step) {
+            int base = perm[i] * DIMS;
+            for (int d = 0; d < DIMS; d++) {
+                float v = pts[base + d];
+                if (v < min[d]) min[d] = v;
+                if (v > max[d]) max[d] = v;
+            }
+        }
+        int best = 0;
+        for (int d = 1; d < DIMS; d++) if (max[d] - min[d] > max[best] - min[best]) best = d;
+        return best;
+    }
+
+    /**
+     * Quickselect with a three-way partition (many features repeat values, e.g. key/mode):
+     * places the k-th smallest (by dim) at perm[k], smaller-or-equal left, larger-or-equal right.
+     */
+    private static void select(float[] pts, int[] perm, int left, int right, int k, int dim) {
+        while (right > left) {
+            float pivot = pts[perm[(left + right) >>> 1] * DIMS + dim];
+            int lt = left, i = left, gt = right;
+            while (i <= gt) {
+                float v = pts[perm[i] * DIMS + dim];
+                if (v < pivot)      swap(perm, lt++, i++);
+                else if (v > pivot) swap(perm, i, gt--);
+                else                i++;
+            }
+            // [left, lt) < pivot, [lt, gt] == pivot, (gt, right] > pivot
+            if (k < lt)      right = lt - 1;
+            else if (k > gt) left = gt + 1;
+            else return;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i]; a[i] = a[j]; a[j] = t;
+    }
+}
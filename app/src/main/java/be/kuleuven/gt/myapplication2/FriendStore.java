@@ -0,0 +1,313 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Local copy of the logged-in user’s friend list.
+ * • add()/remove() change the visible list at once and send set_friend in the
+ *   background; a failed write is rolled back and reported to the caller
+ * • the list is the server-confirmed set plus the writes still in flight, so a
+ *   rollback only drops the pending entry and never guesses the server state
+ * • sync() pulls only friendships changed after the stored change version
+ *   (get_friends_delta, keyset pages of PAGE_SIZE); removals arrive as tombstones
+ * • confirmed set and sync cursor are persisted in one AtomicFile, so the
+ *   friends screen paints without waiting for the network
+ * All methods must be called on the UI thread; disk work runs on AppExecutors.io().
+ */
+import android.content.Context;
+import android.net.Uri;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.volley.Request;
+import com.android.volley.toolbox.JsonObjectRequest;
+import com.android.volley.toolbox.StringRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+public final class FriendStore {
+
+    private static final int    MAGIC          = 0x47524652;   // "GRFR"
+    private static final int    FORMAT_VERSION = 1;
+    private static final int    PAGE_SIZE      = 500;
+    private static final String DELTA_URL = "https://studev.groept.be/api/a24pt103/get_friends_delta/";
+    private static final String SET_URL   = "https://studev.groept.be/api/a24pt103/set_friend";
+
+    /** Receives the visible friend list (confirmed + pending writes), sorted by name. */
+    public interface Listener {
+        void onFriends(List<String> friends);
+    }
+
+    /** Outcome of one add/remove; on false the change has already been rolled back. */
+    public interface Callback {
+        void onResult(boolean saved);
+    }
+
+    /** A write in flight: the friendship state it asks for. */
+    private static final class Op {
+        final boolean add;
+        Op(boolean add) { this.add = add; }
+    }
+
+    private static volatile FriendStore instance;
+
+    private final Context appContext;
+    private final AtomicFile file;
+    private final List<Runnable> afterLoad = new ArrayList<>();
+
+    // Server-confirmed state and the (version, friend) keyset cursor it reflects
+    private String owner = "";
+    private final TreeSet<String> confirmed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private long version = 0;
+    private String afterFriend = "";
+
+    private final Map<String, Op> pending = new HashMap<>();    // friend → write in flight
+    private Listener listener;
+    private boolean loaded = false;
+    private boolean syncing = false;
+    private int deltaRows = 0, rollbacks = 0;
+
+    public static FriendStore get(Context context) {
+        if (instance == null) {
+            synchronized (FriendStore.class) {
+                if (instance == null) instance = new FriendStore(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private FriendStore(Context appContext) {
+        this.appContext = appContext;
+        this.file = new AtomicFile(new File(appContext.getFilesDir(), "friends.bin"));
+        DebugStats.register("friends", () -> "owner=" + owner + " friends=" + confirmed.size()
+                + " version=" + version + " pending=" + pending.size()
+                + " delta rows=" + deltaRows + " rollbacks=" + rollbacks);
+        AppExecutors.io().execute(this::load);
+    }
+
+    /** Attaches the screen showing the list; it gets the current list at once. */
+    public void setListener(String username, Listener l) {
+        listener = l;
+        whenLoaded(() -> {
+            switchOwner(username);
+            publish();
+        });
+    }
+
+    /** Detaches l, unless a newer screen has attached meanwhile. */
+    public void removeListener(Listener l) {
+        if (listener == l) listener = null;
+    }
+
+    /** Pulls the friendship changes after the stored version. */
+    public void sync(String username) {
+        whenLoaded(() -> {
+            switchOwner(username);
+            if (syncing) return;
+            syncing = true;
+            fetchDelta();
+        });
+    }
+
+    public void add(String username, String friend, Callback callback) {
+        mutate(username, friend, true, callback);
+    }
+
+    public void remove(String username, String friend, Callback callback) {
+        mutate(username, friend, false, callback);
+    }
+
+    // --- Optimistic writes ---
+
+    private void mutate(String username, String friend, boolean add, Callback callback) {
+        whenLoaded(() -> {
+            switchOwner(username);
+            Op op = new Op(add);
+            pending.put(friend, op);
+            publish();
+
+            StringRequest request = new StringRequest(Request.Method.POST, SET_URL,
+                    response -> {
+                        if (add) confirmed.add(friend);
+                        else     confirmed.remove(friend);
+                        finish(friend, op);
+                        persist();
+                        callback.onResult(true);
+                    },
+                    error -> {
+                        Log.w("FRIEND_STORE", (add ? "Add " : "Remove ") + friend + " failed, rolling back", error);
+                        rollbacks++;
+                        finish(friend, op);
+                        callback.onResult(false);
+                    }) {
+                @Override
+                protected Map<String, String> getParams() {
+                    Map<String, String> params = new HashMap<>();
+                    params.put("userone", username);
+                    params.put("usertwo", friend);
+                    params.put("op", add ? "add" : "remove");
+                    return params;
+                }
+            };
+            request.setShouldCache(false);
+            GrooverNetwork.get(appContext).add(request);
+        });
+    }
+
+    /** Drops a finished write from the overlay, unless a newer one for that friend replaced it. */
+    private void finish(String friend, Op op) {
+        if (pending.get(friend) == op) pending.remove(friend);
+        publish();
+    }
+
+    // --- Delta sync ---
+
+    private void fetchDelta() {
+        String requestOwner = owner;
+        String after = afterFriend.isEmpty() ? "0" : Uri.encode(afterFriend);   // no row has version 0
+        String url = String.format(Locale.US, "%s%s/%d/%s/%d",
+                DELTA_URL, Uri.encode(owner), version, after, PAGE_SIZE);
+
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> {
+                    if (!requestOwner.equals(owner)) {                // account switched meanwhile
+                        syncing = false;
+                        return;
+                    }
+                    try {
+                        JSONArray changes = response.getJSONArray("changes");
+                        for (int i = 0; i < changes.length(); i++) {
+                            JSONObject c = changes.getJSONObject(i);
+                            String friend = c.getString("friend");
+                            if (c.getInt("deleted") != 0) confirmed.remove(friend);
+                            else                          confirmed.add(friend);
+                            version     = c.getLong("version");
+                            afterFriend = friend;
+                        }
+                        deltaRows += changes.length();
+                        if (changes.length() > 0) {
+                            publish();
+                            persist();
+                        }
+                        if (response.optBoolean("has_more") && changes.length() > 0) {
+                            fetchDelta();
+                            return;
+                        }
+                    } catch (JSONException e) {
+                        Log.e("FRIEND_STORE", "Malformed friends delta", e);
+                    }
+                    syncing = false;
+                },
+                error -> {
+                    Log.w("FRIEND_STORE", "Friends sync failed, showing local list", error);
+                    syncing = false;
+                });
+        request.setShouldCache(false);                                // the store is the cache
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private void switchOwner(String username) {
+        if (username.equals(owner)) return;
+        owner = username;
+        confirmed.clear();
+        pending.clear();
+        version = 0;
+        afterFriend = "";
+        syncing = false;
+    }
+
+    private void publish() {
+        if (listener == null) return;
+        TreeSet<String> visible = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        visible.addAll(confirmed);
+        for (Map.Entry<String, Op> e : pending.entrySet()) {
+            if (e.getValue().add) visible.add(e.getKey());
+            else                  visible.remove(e.getKey());
+        }
+        listener.onFriends(new ArrayList<>(visible));
+    }
+
+    // --- Persistence ---
+
+    private void whenLoaded(Runnable r) {
+        if (loaded) r.run();
+        else afterLoad.add(r);
+    }
+
+    private void persist() {
+        String user = owner;
+        List<String> snapshot = new ArrayList<>(confirmed);
+        long v = version;
+        String after = afterFriend;
+        AppExecutors.io().execute(() -> write(user, snapshot, v, after));
+    }
+
+    private void write(String user, List<String> friends, long v, String after) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeUTF(user);
+            data.writeLong(v);
+            data.writeUTF(after);
+            data.writeInt(friends.size());
+            for (String f : friends) data.writeUTF(f);
+            data.flush();
+            file.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) file.failWrite(out);
+            Log.e("FRIEND_STORE", "Could not persist friends", e);
+        }
+    }
+
+    private void load() {
+        String user = "", after = "";
+        long v = 0;
+        List<String> friends = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(file.openRead())) {
+            if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {
+                user  = in.readUTF();
+                v     = in.readLong();
+                after = in.readUTF();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) friends.add(in.readUTF());
+            }
+        } catch (FileNotFoundException e) {
+            // no friends synced on this device yet
+        } catch (IOException e) {
+            Log.w("FRIEND_STORE", "Discarding unreadable friend list", e);
+            user = "";
+            v = 0;
+            after = "";
+            friends.clear();
+        }
+
+        String fileOwner = user, fileAfter = after;
+        long fileVersion = v;
+        AppExecutors.main().execute(() -> {
+            owner       = fileOwner;
+            version     = fileVersion;
+            afterFriend = fileAfter;
+            confirmed.addAll(friends);
+            loaded = true;
+            for (Runnable r : afterLoad) r.run();
+            afterLoad.clear();
+        });
+    }
+}
@@ -7,7 +7,6 @@ package be.kuleuven.gt.myapplication2;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -17,28 +16,20 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.android.volley.Request;
-import com.android.volley.toolbox.JsonArrayRequest;
-import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import org.json.JSONException;
-
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class FriendsListActivity extends AppCompatActivity {
 
     private RecyclerView recyclerView;
     private FriendAdapter adapter;
-    private final List<String> friendList = new ArrayList<>();
     private String currentUsername;
+    private final FriendStore.Listener friendsListener = friends -> adapter.submitList(friends);
 
     /** Sets up UI, listeners, and initial data fetch. */
     @Override
@@ -49,7 +40,7 @@ public class FriendsListActivity extends AppCompatActivity {
         // RecyclerView setup
         recyclerView = findViewById(R.id.friendsRecyclerView);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new FriendAdapter(friendList);
+        adapter = new FriendAdapter();
         recyclerView.setAdapter(adapter);
 
         // Retrieve current username
@@ -64,8 +55,8 @@ public class FriendsListActivity extends AppCompatActivity {
             startActivity(intent);
         });
 
-        // Get friends from backend
-        fetchFriends();
+        // Stored friends first, then the delta from the backend
+        showFriends();
 
         // Bottom-navigation item selection (unchanged logic: if-chain)
         BottomNavigationView bottomNav = findViewById(R.id.bottom_nav);
@@ -91,90 +82,55 @@ public class FriendsListActivity extends AppCompatActivity {
         });
     }
 
-    /** Downloads the friend list for the current user. */
-    private void fetchFriends() {
-        String url = "https://studev.groept.be/api/a24pt103/get_friends/" + currentUsername;
-
-        JsonArrayRequest request = new JsonArrayRequest(Request.Method.GET, url, null,
-                response -> {
-                    friendList.clear();
-                    for (int i = 0; i < response.length(); i++) {
-                        try {
-                            String friend = response.getJSONObject(i).getString("user2");
-                            friendList.add(friend);
-                            Log.d("DEBUG", "Fetched friend: " + friend);
-                        } catch (JSONException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                    adapter.notifyDataSetChanged();
-                },
-                error -> {
-                    Toast.makeText(this, "Failed to load friends", Toast.LENGTH_SHORT).show();
-                    error.printStackTrace();
-                });
-
-        Volley.newRequestQueue(this).add(request);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        FriendStore.get(this).removeListener(friendsListener);
+    }
+
+    /** Shows the stored friend list at once, then pulls the changes made since the last sync. */
+    private void showFriends() {
+        FriendStore store = FriendStore.get(this);
+        store.setListener(currentUsername, friendsListener);
+        store.sync(currentUsername);
     }
 
     /**
-     * Removes a friendship on the backend, then refreshes the list.
+     * Removes a friendship; the row disappears at once and comes back if the
+     * backend rejects the change.
      *
      * @param user1 initiator
      * @param user2 friend to remove
      */
     private void removeFriend(String user1, String user2) {
-        String url = "https://studev.groept.be/api/a24pt103/remove_friends";
-
-        StringRequest request = new StringRequest(Request.Method.POST, url,
-                response -> {
-                    Toast.makeText(this, "Friend removed", Toast.LENGTH_SHORT).show();
-                    fetchFriends();
-                },
-                error -> {
-                    Toast.makeText(this, "Failed to remove friend", Toast.LENGTH_SHORT).show();
-                    error.printStackTrace();
-                }) {
-            @Override
-            protected Map<String, String> getParams() {
-                Map<String, String> params = new HashMap<>();
-                params.put("userone", user1);
-                params.put("usertwo", user2);
-                return params;
-            }
-        };
-
-        Volley.newRequestQueue(this).add(request);
+        FriendStore.get(this).remove(user1, user2, saved -> {
+            if (saved) Toast.makeText(this, "Friend removed", Toast.LENGTH_SHORT).show();
+            else       Toast.makeText(this, "Failed to remove friend", Toast.LENGTH_SHORT).show();
+        });
     }
 
     /**
-     * Sends a friend-request API call.
+     * Adds a friend (optimistically, through FriendStore).
      */
     public static void sendFriendRequest(String currentUser, String targetUser, Context context) {
-        String url = "https://studev.groept.be/api/a24pt103/add_friend/";
-
-        StringRequest request = new StringRequest(Request.Method.POST, url,
-                response -> Toast.makeText(context, "Friend added successfully!", Toast.LENGTH_SHORT).show(),
-                error -> Toast.makeText(context, "Failed to add friend", Toast.LENGTH_SHORT).show()) {
-            @Override
-            protected Map<String, String> getParams() {
-                Map<String, String> params = new HashMap<>();
-                params.put("userone", currentUser);
-                params.put("usertwo", targetUser);
-                return params;
-            }
-        };
-
-        Volley.newRequestQueue(context).add(request);
+        FriendStore.get(context).add(currentUser, targetUser, saved -> {
+            if (saved) Toast.makeText(context, "Friend added successfully!", Toast.LENGTH_SHORT).show();
+            else       Toast.makeText(context, "Failed to add friend", Toast.LENGTH_SHORT).show();
+        });
     }
 
-    /** Adapter for the friend list RecyclerView. */
+    /** Adapter for the friend list RecyclerView; rows keyed by username, diffed off the UI thread. */
     private class FriendAdapter extends RecyclerView.Adapter<FriendAdapter.FriendViewHolder> {
 
-        private final List<String> friends;
+        private final AsyncListDiffer<String> differ =
+                new AsyncListDiffer<>(this, ItemDiffs.config(ItemDiffs.USERNAMES));
+
+        FriendAdapter() {
+            setHasStableIds(true);
+        }
 
-        FriendAdapter(List<String> friends) {
-            this.friends = friends;
+        void submitList(List<String> friends) {
+            differ.submitList(friends);
         }
 
         /** Inflates a row view. */
@@ -189,7 +145,7 @@ public class FriendsListActivity extends AppCompatActivity {
         /** Binds data to a row. */
         @Override
         public void onBindViewHolder(@NonNull FriendViewHolder holder, int position) {
-            String friend = friends.get(position);
+            String friend = differ.getCurrentList().get(position);
             holder.friendName.setText(friend);
 
             holder.btnRemove.setOnClickListener(v -> removeFriend(currentUsername, friend));
@@ -201,9 +157,14 @@ public class FriendsListActivity extends AppCompatActivity {
             });
         }
 
+        @Override
+        public long getItemId(int position) {
+            return ItemDiffs.stableId(differ.getCurrentList().get(position));
+        }
+
         @Override
         public int getItemCount() {
-            return friends.size();
+            return differ.getCurrentList().size();
         }
 
         /** Holds row views. */
@@ -0,0 +1,200 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Process-wide network client shared by every Groover screen.
+ * • One Volley RequestQueue with a bounded dispatcher pool and one disk cache
+ * • HTTP caching driven by the server’s validators, max-age and
+ *   stale-while-revalidate (counted by HttpCachePolicy); writes invalidate the cached reads they affect
+ * • Keep-alive connection pooling towards studev.groept.be and api.spotify.com
+ * • Live counters (sockets, dispatcher threads, in-flight requests) for debugging
+ */
+import android.content.Context;
+import android.util.Log;
+
+import com.android.volley.CacheDispatcher;
+import com.android.volley.NetworkDispatcher;
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.BasicNetwork;
+import com.android.volley.toolbox.DiskBasedCache;
+import com.android.volley.toolbox.HurlStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+public final class GrooverNetwork {
+
+    // --- Pool / cache sizing ---
+    private static final int NETWORK_THREADS   = 4;                  // Volley default, now shared app-wide
+    private static final int CACHE_SIZE_BYTES  = 10 * 1024 * 1024;   // single HTTP cache for all screens
+    private static final int MAX_IDLE_SOCKETS  = 6;                  // keep-alive pool per host
+
+    private static volatile GrooverNetwork instance;
+
+    private final RequestQueue queue;
+    private final CountingSocketFactory socketFactory;
+    private final HttpCachePolicy cachePolicy;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Returns the shared client, creating it on first use. */
+    public static GrooverNetwork get(Context context) {
+        if (instance == null) {
+            synchronized (GrooverNetwork.class) {
+                if (instance == null) instance = new GrooverNetwork(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private GrooverNetwork(Context appContext) {
+        // HttpURLConnection pools keep-alive connections per host; make the limits explicit
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(MAX_IDLE_SOCKETS));
+
+        socketFactory = new CountingSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+
+        File cacheDir = new File(appContext.getCacheDir(), "volley");
+        cachePolicy = new HttpCachePolicy(new BasicNetwork(new HurlStack(null, socketFactory)));
+        queue = new RequestQueue(
+                new DiskBasedCache(cacheDir, CACHE_SIZE_BYTES),
+                cachePolicy,
+                NETWORK_THREADS);
+
+        queue.addRequestEventListener((request, event) -> {
+            if (event == RequestQueue.RequestEvent.REQUEST_QUEUED)   inFlight.incrementAndGet();
+            if (event == RequestQueue.RequestEvent.REQUEST_FINISHED) inFlight.decrementAndGet();
+        });
+        queue.start();
+
+        DebugStats.register("network", this::statsSummary);
+        DebugStats.register("http cache", cachePolicy::statsSummary);
+        Log.d("NETWORK", "Shared request queue started with " + NETWORK_THREADS + " dispatchers");
+    }
+
+    /** Enqueues a request on the shared queue. */
+    public <T> Request<T> add(Request<T> request) {
+        return queue.add(request);
+    }
+
+    /** Cancels all requests tagged with the given object (typically an Activity). */
+    public void cancelAll(Object tag) {
+        queue.cancelAll(tag);
+    }
+
+    /**
+     * Drops the cached response for a GET url after a write changed it, so the
+     * next read cannot paint the outdated copy first. then (optional) runs on
+     * the UI thread once the entry is gone.
+     */
+    public void invalidate(String url, Runnable then) {
+        AppExecutors.io().execute(() -> {
+            queue.getCache().remove(url);
+            if (then != null) AppExecutors.main().execute(then);
+        });
+    }
+
+    public RequestQueue getQueue() { return queue; }
+
+    // --- Live counters ---
+    public int liveSockets()        { return socketFactory.liveSockets(); }
+    public int totalSocketsOpened() { return socketFactory.opened.get(); }
+    public int inFlightRequests()   { return inFlight.get(); }
+
+    /**
+     * Volley dispatcher threads actually alive in this process (expected:
+     * NETWORK_THREADS + 1 cache dispatcher). Walks all threads: debug use only.
+     */
+    public int dispatcherThreads() {
+        int live = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && (t instanceof NetworkDispatcher || t instanceof CacheDispatcher)) live++;
+        }
+        return live;
+    }
+
+    /** One-line summary used by the debug dialog. */
+    public String statsSummary() {
+        return "sockets live=" + liveSockets() + " opened=" + totalSocketsOpened()
+                + ", threads=" + dispatcherThreads()
+                + ", in-flight=" + inFlightRequests();
+    }
+
+    /**
+     * Delegating SSL socket factory that remembers every socket it creates,
+     * so the number of open (pooled or active) TLS connections can be counted.
+     */
+    private static final class CountingSocketFactory extends SSLSocketFactory {
+
+        private final SSLSocketFactory delegate;
+        private final List<WeakReference<Socket>> sockets = new ArrayList<>();
+        final AtomicInteger opened = new AtomicInteger();
+
+        CountingSocketFactory(SSLSocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        private Socket track(Socket s) {
+            opened.incrementAndGet();
+            synchronized (sockets) {
+                sockets.add(new WeakReference<>(s));
+            }
+            return s;
+        }
+
+        int liveSockets() {
+            int live = 0;
+            synchronized (sockets) {
+                Iterator<WeakReference<Socket>> it = sockets.iterator();
+                while (it.hasNext()) {
+                    Socket s = it.next().get();
+                    if (s == null || s.isClosed()) it.remove();
+                    else live++;
+                }
+            }
+            return live;
+        }
+
+        @Override public String[] getDefaultCipherSuites()   { return delegate.getDefaultCipherSuites(); }
+        @Override public String[] getSupportedCipherSuites() { return delegate.getSupportedCipherSuites(); }
+
+        @Override
+        public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+            return track(delegate.createSocket(s, host, port, autoClose));
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return track(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return track(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return track(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return track(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return track(delegate.createSocket(address, port, localAddress, localPort));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * HTTP cache accounting, between Volley’s network layer and its disk cache.
+ * • Volley already stores ETag / Last-Modified, revalidates with If-None-Match /
+ *   If-Modified-Since and honours max-age and stale-while-revalidate; freshness
+ *   comes from the Cache-Control each Groover endpoint sends (send_json_cached),
+ *   so there are no client-side rules to keep in sync with the server
+ * • within the stale window Volley delivers the cached body at once and refreshes
+ *   it in the background: listeners of such endpoints may be called twice, and an
+ *   unchanged body (304) is not delivered again
+ * • counts full vs. not-modified answers for the debug dialog
+ */
+import com.android.volley.Network;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class HttpCachePolicy implements Network {
+
+    private static final String API = "https://studev.groept.be/api/a24pt103/";
+
+    private final Network delegate;
+    private final AtomicInteger full        = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    HttpCachePolicy(Network delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public NetworkResponse performRequest(Request<?> request) throws VolleyError {
+        NetworkResponse response = delegate.performRequest(request);
+        if (request.getMethod() != Request.Method.GET || !request.getUrl().startsWith(API)) return response;
+
+        if (response.notModified) notModified.incrementAndGet();
+        else                      full.incrementAndGet();
+        return response;
+    }
+
+    /** One-line summary used by the debug dialog. */
+    String statsSummary() {
+        return "full=" + full.get() + " not-modified=" + notModified.get();
+    }
+}
@@ -0,0 +1,64 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * List-diffing support shared by every RecyclerView adapter.
+ * • item identity is the Spotify/Groover song ID or the username; contents
+ *   compare only what a row actually shows
+ * • config() runs the diff on AppExecutors.io(), so replacing a list never
+ *   blocks the UI thread and only changed rows are rebound
+ * • stableId() turns those keys into the 64-bit IDs RecyclerView uses for
+ *   stable-ID item animations
+ */
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.Objects;
+
+public final class ItemDiffs {
+
+    private ItemDiffs() {}
+
+    public static final DiffUtil.ItemCallback<Song> SONGS = new DiffUtil.ItemCallback<Song>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Song a, @NonNull Song b) {
+            return Objects.equals(a.getId(), b.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Song a, @NonNull Song b) {
+            return Objects.equals(a.getName(), b.getName())
+                    && Objects.equals(a.getArtist(), b.getArtist())
+                    && Objects.equals(a.getAlbumCoverUrl(), b.getAlbumCoverUrl())
+                    && Objects.equals(a.getPreviewUrl(), b.getPreviewUrl())
+                    && Objects.equals(a.getUri(), b.getUri());
+        }
+    };
+
+    /** Usernames are both identity and content. */
+    public static final DiffUtil.ItemCallback<String> USERNAMES = new DiffUtil.ItemCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull String a, @NonNull String b) { return a.equals(b); }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull String a, @NonNull String b) { return a.equals(b); }
+    };
+
+    /** Differ config that computes diffs on the shared I/O pool. */
+    public static <T> AsyncDifferConfig<T> config(DiffUtil.ItemCallback<T> callback) {
+        return new AsyncDifferConfig.Builder<>(callback)
+                .setBackgroundThreadExecutor(AppExecutors.io())
+                .build();
+    }
+
+    /** 64-bit FNV-1a of the key: stable across list updates and app restarts. */
+    public static long stableId(String key) {
+        long h = 0xcbf29ce484222325L;
+        if (key == null) return h;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -4,7 +4,10 @@ package be.kuleuven.gt.myapplication2;
  * Shows the list of songs the user has liked in Groover.
  * Users can:
  * • remove a song from their Groover likes (DELETE call)
- * • “like” the song on Spotify (PUT to Spotify API)
+ * • “like” the song on Spotify (queued, saved in batches by SpotifyLikeQueue)
+ * • save all their Groover likes to Spotify at once
+ * Likes are paged newest-first through LikedSongPager: stored pages show at
+ * once, further pages load as the list is scrolled.
  * The screen also includes the global bottom-navigation bar.
  */
 import android.content.Intent;
@@ -12,6 +15,7 @@ import android.content.SharedPreferences;
 import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
+import android.widget.Button;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -19,16 +23,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.volley.Request;
-import com.android.volley.toolbox.JsonArrayRequest;
-import com.android.volley.toolbox.JsonObjectRequest;
 import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -37,9 +34,12 @@ import java.util.Map;
 public class LikedActivity extends AppCompatActivity {
 
     private RecyclerView recyclerView;
+    private Button btnSaveAll;
     private LikedSongAdapter adapter;
     private String currentUsername;
+    private LikedSongPager pager;
     private final List<Song> likedSongs = new ArrayList<>();
+    private int rejectedSeen = -1;                       // SpotifyLikeQueue count already reported
 
     /** Sets up UI components, adapters, and initial data fetch. */
     @Override
@@ -51,10 +51,9 @@ public class LikedActivity extends AppCompatActivity {
         recyclerView = findViewById(R.id.recyclerViewLikedSongs);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         adapter = new LikedSongAdapter(
-                likedSongs,
                 (song, position) -> {          // Delete button
                     deleteSongFromServer(song);
-                    adapter.removeItem(position);
+                    pager.remove(song.getId());
                 },
                 song -> likeSongOnSpotify(song) // Spotify like button
         );
@@ -64,8 +63,40 @@ public class LikedActivity extends AppCompatActivity {
         SharedPreferences prefs = getSharedPreferences("grooverPrefs", MODE_PRIVATE);
         currentUsername = prefs.getString("username", "testuser");
 
-        // Load liked songs from backend
-        fetchLikedSongsFromServer();
+        // Liked songs, one page at a time
+        pager = new LikedSongPager(this, currentUsername, new LikedSongPager.Listener() {
+            @Override public void onSongs(List<Song> songs, boolean hasMore) {
+                likedSongs.clear();
+                likedSongs.addAll(songs);
+                showLikedSongs();
+                fillInCachedDetails();
+            }
+            @Override public void onError() {
+                Toast.makeText(LikedActivity.this, "Failed to load liked songs", Toast.LENGTH_SHORT).show();
+            }
+        });
+        pager.start();
+
+        LinearLayoutManager layout = (LinearLayoutManager) recyclerView.getLayoutManager();
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView rv, int dx, int dy) {
+                if (dy > 0 && layout.findLastVisibleItemPosition() >= adapter.getItemCount() - 10) {
+                    pager.loadMore();
+                }
+            }
+        });
+
+        // Save every Groover like to the Spotify library, in batched calls
+        btnSaveAll = findViewById(R.id.btnSaveAllSpotify);
+        btnSaveAll.setOnClickListener(v -> {
+            if (prefs.getString("SPOTIFY_TOKEN", null) == null) {
+                Toast.makeText(this, "Spotify token missing!", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            SpotifyLikeQueue.get(this).saveAll(currentUsername);
+        });
+        SpotifyLikeQueue.get(this).setListener(saveAllProgress);
 
         // Bottom-navigation bar (kept as original if-chain)
         BottomNavigationView bottomNav = findViewById(R.id.bottom_nav);
@@ -91,80 +122,62 @@ public class LikedActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        pager.close();
+        SpotifyLikeQueue.get(this).removeListener(saveAllProgress);
+    }
+
     /**
-     * Sends a “like” request to the Spotify Web API for the given song.
+     * Queues a “like” of the song for the user’s Spotify library; SpotifyLikeQueue
+     * sends it with other taps in one batched call.
      * Requires a valid Spotify OAuth token stored in SharedPreferences.
      */
     private void likeSongOnSpotify(Song song) {
         SharedPreferences prefs = getSharedPreferences("grooverPrefs", MODE_PRIVATE);
-        String token = prefs.getString("SPOTIFY_TOKEN", null);
-
-        if (token == null) {
+        if (prefs.getString("SPOTIFY_TOKEN", null) == null) {
             Toast.makeText(this, "Spotify token missing!", Toast.LENGTH_SHORT).show();
             return;
         }
+        SpotifyLikeQueue.get(this).enqueue(song.getId());
+        Toast.makeText(this, "Queued for Spotify", Toast.LENGTH_SHORT).show();
+    }
 
-        String songId = song.getId();
-        String url = "https://api.spotify.com/v1/me/tracks?ids=" + songId;
-
-        Log.d("SPOTIFY_LIKE", "Trying to like song with ID: " + songId);
-        Log.d("SPOTIFY_LIKE", "Using token: " + token);
-        Log.d("SPOTIFY_LIKE", "Request URL: " + url);
-
-        JsonObjectRequest request = new JsonObjectRequest(
-                Request.Method.PUT, url, null,
-                response -> Toast.makeText(this, "Liked on Spotify!", Toast.LENGTH_SHORT).show(),
-                error -> {
-                    error.printStackTrace();
-                    if (error.networkResponse != null) {
-                        String errorBody = new String(error.networkResponse.data);
-                        Log.e("SPOTIFY_LIKE_ERROR", "Status: " + error.networkResponse.statusCode);
-                        Log.e("SPOTIFY_LIKE_ERROR", "Body: " + errorBody);
-                    }
-                    // Optional toast removed in original code
-                }) {
-            @Override
-            public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                headers.put("Authorization", "Bearer " + token);
-                headers.put("Content-Type", "application/json");
-                return headers;
-            }
-        };
+    /** Shows the bulk save’s progress on its button and reports songs Spotify refused. */
+    private final SpotifyLikeQueue.Listener saveAllProgress = (saved, pending, rejected, bulkRunning) -> {
+        btnSaveAll.setEnabled(!bulkRunning);
+        btnSaveAll.setText(bulkRunning ? "Saving to Spotify… " + saved + " saved" : "Save all to Spotify");
+        if (rejectedSeen >= 0 && rejected > rejectedSeen) {
+            Toast.makeText(this, (rejected - rejectedSeen) + " song(s) could not be saved on Spotify",
+                    Toast.LENGTH_SHORT).show();
+        }
+        rejectedSeen = rejected;
+    };
 
-        Volley.newRequestQueue(this).add(request);
-    }
+    /**
+     * Swaps the bare title/artist rows for cached Spotify metadata (cover, preview, URI)
+     * where the track cache already knows them. Never triggers a network call.
+     */
+    private void fillInCachedDetails() {
+        List<String> ids = new ArrayList<>();
+        for (Song s : likedSongs) ids.add(s.getId());
 
-    /** Retrieves the user’s liked songs from the Groover backend. */
-    private void fetchLikedSongsFromServer() {
-        String url = "https://studev.groept.be/api/a24pt103/get_groover_liked_songs/" + currentUsername;
-
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    likedSongs.clear();
-                    for (int i = 0; i < response.length(); i++) {
-                        try {
-                            JSONObject obj = response.getJSONObject(i);
-                            String title  = obj.getString("title");
-                            String artist = obj.getString("artist");
-                            String songId = obj.getString("songid");
-
-                            Song song = new Song(title, artist, "", null);
-                            song.setId(songId);
-                            likedSongs.add(song);
-                        } catch (JSONException e) {
-                            e.printStackTrace();
-                        }
-                    }
-                    adapter.notifyDataSetChanged();
-                },
-                error -> {
-                    error.printStackTrace();
-                    Toast.makeText(this, "Failed to load liked songs", Toast.LENGTH_SHORT).show();
-                });
+        SpotifyTrackRepository.get(this).peekCached(ids, (cached, complete) -> {
+            Map<String, Song> byId = new HashMap<>();
+            for (Song s : cached) byId.put(s.getId(), s);
+
+            for (int i = 0; i < likedSongs.size(); i++) {
+                Song full = byId.get(likedSongs.get(i).getId());
+                if (full != null) likedSongs.set(i, full);
+            }
+            if (!byId.isEmpty()) showLikedSongs();   // diff rebinds only the filled-in rows
+        });
+    }
 
-        Volley.newRequestQueue(this).add(request);
+    /** Hands the adapter a snapshot of likedSongs to diff against what it shows. */
+    private void showLikedSongs() {
+        adapter.submitList(new ArrayList<>(likedSongs));
     }
 
     /**
@@ -182,6 +195,6 @@ public class LikedActivity extends AppCompatActivity {
                 response -> Log.d("DELETE", "Song deleted from DB: " + song.getName()),
                 error -> Log.e("DELETE", "Failed to delete song from DB", error));
 
-        Volley.newRequestQueue(this).add(req);
+        GrooverNetwork.get(this).add(req);
     }
 }
@@ -5,6 +5,8 @@ package be.kuleuven.gt.myapplication2;
  * Provides two listener hooks:
  * • deleteListener – remove from Groover’s backend
  * • likeListener   – “like” the track on Spotify
+ * A null listener hides its button (read-only lists, e.g. another user’s likes).
+ * Rows are keyed by song ID (stable IDs); submitList() diffs off the UI thread.
  */
 import android.view.LayoutInflater;
 import android.view.View;
@@ -13,13 +15,14 @@ import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.List;
 
 public class LikedSongAdapter extends RecyclerView.Adapter<LikedSongAdapter.LikedSongViewHolder> {
 
-    private final List<Song> likedSongs;
+    private final AsyncListDiffer<Song> differ = new AsyncListDiffer<>(this, ItemDiffs.config(ItemDiffs.SONGS));
     private final OnDeleteClickListener deleteListener;
     private final OnSpotifyLikeClickListener likeListener;
 
@@ -33,13 +36,17 @@ public class LikedSongAdapter extends RecyclerView.Adapter<LikedSongAdapter.Like
         void onLikeClick(Song song);
     }
 
-    /** Adapter constructor receives the data set and two action listeners. */
-    public LikedSongAdapter(List<Song> likedSongs,
-                            OnDeleteClickListener deleteListener,
+    /** Adapter constructor receives the two action listeners; rows come from submitList(). */
+    public LikedSongAdapter(OnDeleteClickListener deleteListener,
                             OnSpotifyLikeClickListener likeListener) {
-        this.likedSongs = likedSongs;
         this.deleteListener = deleteListener;
         this.likeListener = likeListener;
+        setHasStableIds(true);
+    }
+
+    /** Shows this list; only rows that differ from the current one are touched. */
+    public void submitList(List<Song> songs) {
+        differ.submitList(songs);
     }
 
     /** Inflates a single row view. */
@@ -54,12 +61,18 @@ public class LikedSongAdapter extends RecyclerView.Adapter<LikedSongAdapter.Like
     /** Binds the song data and click listeners to the view holder. */
     @Override
     public void onBindViewHolder(@NonNull LikedSongViewHolder holder, int position) {
-        Song song = likedSongs.get(position);
+        Song song = differ.getCurrentList().get(position);
         holder.titleText.setText(song.getName());
         holder.artistText.setText(song.getArtist());
 
+        holder.btnDelete.setVisibility(deleteListener != null ? View.VISIBLE : View.GONE);
+        holder.btnLikeOnSpotify.setVisibility(likeListener != null ? View.VISIBLE : View.GONE);
+
         holder.btnDelete.setOnClickListener(v -> {
-            if (deleteListener != null) deleteListener.onDeleteClick(song, position);
+            int current = holder.getBindingAdapterPosition();
+            if (deleteListener != null && current != RecyclerView.NO_POSITION) {
+                deleteListener.onDeleteClick(song, current);
+            }
         });
 
         holder.btnLikeOnSpotify.setOnClickListener(v -> {
@@ -68,14 +81,13 @@ public class LikedSongAdapter extends RecyclerView.Adapter<LikedSongAdapter.Like
     }
 
     @Override
-    public int getItemCount() {
-        return likedSongs.size();
+    public long getItemId(int position) {
+        return ItemDiffs.stableId(differ.getCurrentList().get(position).getId());
     }
 
-    /** Removes an item locally and notifies the adapter. */
-    public void removeItem(int position) {
-        likedSongs.remove(position);
-        notifyItemRemoved(position);
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
     }
 
     /** Holds view references for an individual row. */
@@ -0,0 +1,435 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Pages through one user’s Groover likes, newest first.
+ * • the server (get_liked_songs_page) answers PAGE_SIZE rows before a
+ *   (swipe time, row id) keyset cursor, so every page costs the same
+ * • pages are decoded on a Volley network thread (PageRequest), never on the UI thread
+ * • loaded rows are kept per user in a local page store (the logged-in user’s in
+ *   filesDir, other users’ in cacheDir, at most MAX_CACHED_USERS of them, least
+ *   recently written evicted first); on revisit they are
+ *   shown at once, then the first page is refetched and merged on top – unless
+ *   latestKnown() reports that the stored pages already start with the newest like
+ *   and the like count is the one they were stored with; a changed count (e.g. an
+ *   older like deleted) drops the stored rows and pages again from the top
+ * • a user may have liked the same track twice; only the newest row is shown
+ * All methods must be called on the UI thread.
+ */
+import android.content.Context;
+import android.net.Uri;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class LikedSongPager {
+
+    public static final int PAGE_SIZE = 50;
+    private static final int    MAX_STORED_ROWS = 500;
+    private static final int    MAX_CACHED_USERS = 20;      // other users’ page stores kept in cacheDir
+    private static final int    MAGIC           = 0x47524c50;   // "GRLP"
+    private static final int    FORMAT_VERSION  = 2;
+    private static final String FIRST_PAGE      = "0";
+    private static final String PAGE_URL = "https://studev.groept.be/api/a24pt103/get_liked_songs_page/";
+
+    /** UI callbacks; songs is always the whole list loaded so far. */
+    public interface Listener {
+        void onSongs(List<Song> songs, boolean hasMore);
+        void onError();
+    }
+
+    /** One like: its keyset position plus the song. */
+    private static final class Row {
+        final long rowId, swipedAt;
+        final Song song;
+        Row(long rowId, long swipedAt, Song song) { this.rowId = rowId; this.swipedAt = swipedAt; this.song = song; }
+        String cursor() { return swipedAt + "-" + rowId; }
+    }
+
+    /** A decoded server page, or the stored pages read back from disk. */
+    private static final class Page {
+        final List<Row> rows;
+        final String cursor;
+        final boolean hasMore;
+        int knownCount = -1;                                    // stored pages only
+        Page(List<Row> rows, String cursor, boolean hasMore) { this.rows = rows; this.cursor = cursor; this.hasMore = hasMore; }
+    }
+
+    private final Context appContext;
+    private final String username;
+    private final Listener listener;
+    private final AtomicFile store;
+    private final File storeDir;
+    private final boolean cached;                               // another user’s likes: evictable
+    private final Object requestTag = new Object();
+
+    private List<Row> rows = new ArrayList<>();
+    private String cursor = FIRST_PAGE;
+    private boolean hasMore = true;
+    private int knownCount = -1;                                // like count the rows were fetched at; -1 unknown
+    private boolean loading = false;
+    private boolean closed = false;
+
+    // First-page refresh: runs once the store is read and, if awaited, the newest like is known
+    private boolean storeRead = false;
+    private boolean awaitLatest = false;
+    private boolean latestResolved = false;
+    private boolean refreshed = false;
+    private int generation = 0;                                 // bumped by a refresh; older pages are dropped
+    private String latest;
+    private int latestCount = -1;
+
+    public LikedSongPager(Context context, String username, Listener listener) {
+        this.appContext = context.getApplicationContext();
+        this.username   = username;
+        this.listener   = listener;
+        String owner = appContext.getSharedPreferences("grooverPrefs", Context.MODE_PRIVATE)
+                .getString("username", null);
+        this.cached   = !username.equals(owner);
+        this.storeDir = new File(cached ? appContext.getCacheDir() : appContext.getFilesDir(), "liked_pages");
+        if (!storeDir.exists() && !storeDir.mkdirs()) Log.w("LIKED_PAGER", "Cannot create " + storeDir);
+        this.store = new AtomicFile(new File(storeDir, Uri.encode(username) + ".bin"));
+    }
+
+    /** Shows the stored pages (if any) and refreshes the first page from the server. */
+    public void start() {
+        start(false);
+    }
+
+    /**
+     * Like start(), but the first-page refresh waits for latestKnown() and is
+     * skipped when the stored pages already begin with that like.
+     */
+    public void startAwaitingLatest() {
+        start(true);
+    }
+
+    /**
+     * Cursor of the user’s newest like ("" if none) and their like count, or null
+     * and -1 if they could not be found out. May be called again when a newer
+     * profile arrives.
+     */
+    public void latestKnown(String latestCursor, int likeCount) {
+        latestResolved = true;
+        latest      = latestCursor;
+        latestCount = latestCursor != null ? likeCount : -1;
+        maybeRefresh();
+    }
+
+    private void start(boolean awaitLatest) {
+        this.awaitLatest = awaitLatest;
+        loading = true;
+        AppExecutors.io().execute(() -> {
+            if (cached) {                                       // stored in filesDir by earlier versions
+                File legacy = new File(new File(appContext.getFilesDir(), "liked_pages"), Uri.encode(username) + ".bin");
+                if (legacy.exists() && !legacy.delete()) Log.w("LIKED_PAGER", "Cannot delete " + legacy);
+            }
+            Page stored = read();
+            AppExecutors.main().execute(() -> {
+                if (closed) return;
+                if (stored != null) {
+                    rows    = stored.rows;
+                    cursor  = stored.cursor;
+                    hasMore = stored.hasMore;
+                    knownCount = stored.knownCount;
+                    publish();
+                }
+                storeRead = true;
+                maybeRefresh();
+            });
+        });
+    }
+
+    private void maybeRefresh() {
+        if (closed || refreshed || !storeRead || (awaitLatest && !latestResolved)) return;
+
+        String storedTop = rows.isEmpty() ? "" : rows.get(0).cursor();
+        boolean countChanged = latestCount != knownCount;
+        if (awaitLatest && latest != null && latest.equals(storedTop) && !countChanged) {
+            // Nothing new since the last visit; a later latestKnown() (revalidated
+            // profile) may still report a newer like and trigger the refresh
+            loading = false;
+            if (rows.isEmpty()) {
+                hasMore = false;
+                publish();
+            }
+            return;
+        }
+        if (awaitLatest && latest != null && countChanged) {
+            // Likes changed below the newest one (or the count was never stored):
+            // stored rows may be gone, so page again from the top
+            rows    = new ArrayList<>();
+            cursor  = FIRST_PAGE;
+            hasMore = true;
+        }
+        knownCount = awaitLatest ? latestCount : -1;
+        refreshed = true;
+        loading = true;
+        generation++;                                           // a loadMore in flight would append to the old list
+        fetch(FIRST_PAGE, true);
+    }
+
+    /** Fetches the next page, unless one is loading or the list is complete. */
+    public void loadMore() {
+        if (!hasMore || loading || closed) return;
+        loading = true;
+        fetch(cursor, false);
+    }
+
+    /** Drops every like of this track locally (after deleting it on the server). */
+    public void remove(String songId) {
+        if (!rows.removeIf(r -> songId.equals(r.song.getId()))) return;
+        publish();
+        persist();
+    }
+
+    /** Stops delivering; in-flight requests are cancelled. */
+    public void close() {
+        closed = true;
+        GrooverNetwork.get(appContext).cancelAll(requestTag);
+    }
+
+    // --- Paging ---
+
+    private void fetch(String before, boolean refresh) {
+        String url = String.format(Locale.US, "%s%s/%s/%d", PAGE_URL, Uri.encode(username), before, PAGE_SIZE);
+        int requestGeneration = generation;
+        PageRequest request = new PageRequest(url,
+                page -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    if (refresh) mergeFirstPage(page);
+                    else append(page);
+                    publish();
+                    persist();
+                },
+                error -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    Log.w("LIKED_PAGER", "Page " + before + " failed for " + username, error);
+                    listener.onError();
+                });
+        request.setTag(requestTag);
+        request.setShouldCache(false);                          // the page store is the cache
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private void append(Page page) {
+        rows.addAll(page.rows);
+        cursor  = page.cursor;
+        hasMore = page.hasMore;
+    }
+
+    /**
+     * Puts a fresh first page on top of the stored rows. Stored rows older than the
+     * page are kept only if they continue it without a gap (the stored newest row is
+     * not older than the page’s oldest); otherwise paging restarts from the fresh page.
+     */
+    private void mergeFirstPage(Page page) {
+        boolean contiguous = page.hasMore && !rows.isEmpty() && !page.rows.isEmpty()
+                && compare(rows.get(0), page.rows.get(page.rows.size() - 1)) >= 0;
+        if (!contiguous) {
+            rows    = new ArrayList<>(page.rows);
+            cursor  = page.cursor;
+            hasMore = page.hasMore;
+            return;
+        }
+
+        Row oldestFresh = page.rows.get(page.rows.size() - 1);
+        List<Row> merged = new ArrayList<>(page.rows);
+        for (Row r : rows) if (compare(r, oldestFresh) < 0) merged.add(r);
+        boolean keptOlder = merged.size() > page.rows.size();
+        rows = merged;
+        if (!keptOlder) {
+            cursor  = page.cursor;
+            hasMore = page.hasMore;
+        }                                                       // else: continue after the stored rows
+    }
+
+    /** Newest-first order: positive if a is newer than b. */
+    private static int compare(Row a, Row b) {
+        int byTime = Long.compare(a.swipedAt, b.swipedAt);
+        return byTime != 0 ? byTime : Long.compare(a.rowId, b.rowId);
+    }
+
+    private void publish() {
+        Set<String> seen = new HashSet<>();
+        List<Song> songs = new ArrayList<>(rows.size());
+        for (Row r : rows) if (seen.add(r.song.getId())) songs.add(r.song);
+        listener.onSongs(songs, hasMore);
+    }
+
+    // --- Page store ---
+
+    private void persist() {
+        int count = Math.min(rows.size(), MAX_STORED_ROWS);
+        List<Row> snapshot = new ArrayList<>(rows.subList(0, count));
+        boolean truncated = count < rows.size();
+        String nextCursor = truncated ? snapshot.get(count - 1).cursor() : cursor;
+        boolean more      = truncated || hasMore;
+        int likeCount     = knownCount;
+        AppExecutors.io().execute(() -> write(snapshot, nextCursor, more, likeCount));
+    }
+
+    private void write(List<Row> snapshot, String nextCursor, boolean more, int likeCount) {
+        FileOutputStream out = null;
+        try {
+            out = store.startWrite();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeUTF(nextCursor);
+            data.writeBoolean(more);
+            data.writeInt(likeCount);
+            data.writeInt(snapshot.size());
+            for (Row r : snapshot) {
+                data.writeLong(r.rowId);
+                data.writeLong(r.swipedAt);
+                data.writeUTF(r.song.getId());
+                data.writeUTF(r.song.getName());
+                data.writeUTF(r.song.getArtist());
+            }
+            data.flush();
+            store.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) store.failWrite(out);
+            Log.e("LIKED_PAGER", "Could not store liked pages for " + username, e);
+        }
+        if (cached) evictOldStores();
+    }
+
+    /** Keeps the MAX_CACHED_USERS most recently written stores of other users. */
+    private void evictOldStores() {
+        File[] files = storeDir.listFiles((dir, name) -> name.endsWith(".bin"));
+        if (files == null || files.length <= MAX_CACHED_USERS) return;
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = MAX_CACHED_USERS; i < files.length; i++) {
+            if (!files[i].delete()) Log.w("LIKED_PAGER", "Cannot evict " + files[i]);
+        }
+    }
+
+    private Page read() {
+        try (DataInputStream in = new DataInputStream(store.openRead())) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) return null;
+            String storedCursor = in.readUTF();
+            boolean more = in.readBoolean();
+            int likeCount = in.readInt();
+            int count = in.readInt();
+            List<Row> stored = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long rowId = in.readLong(), swipedAt = in.readLong();
+                String songId = in.readUTF(), title = in.readUTF(), artist = in.readUTF();
+                stored.add(new Row(rowId, swipedAt, likedSong(songId, title, artist)));
+            }
+            Page page = new Page(stored, storedCursor, more);
+            page.knownCount = likeCount;
+            return page;
+        } catch (FileNotFoundException e) {
+            return null;                                        // first visit
+        } catch (IOException e) {
+            Log.w("LIKED_PAGER", "Discarding unreadable liked pages", e);
+            return null;
+        }
+    }
+
+    private static Song likedSong(String songId, String title, String artist) {
+        Song song = new Song(title, artist, "", null);
+        song.setId(songId);
+        return song;
+    }
+
+    /** Volley request that decodes one page on the network dispatcher thread. */
+    private static final class PageRequest extends Request<Page> {
+
+        private final Response.Listener<Page> listener;
+
+        PageRequest(String url, Response.Listener<Page> listener, Response.ErrorListener errorListener) {
+            super(Method.GET, url, errorListener);
+            this.listener = listener;
+        }
+
+        @Override
+        protected Response<Page> parseNetworkResponse(NetworkResponse response) {
+            try (Reader in = new InputStreamReader(new ByteArrayInputStream(response.data), StandardCharsets.UTF_8)) {
+                return Response.success(decode(new JsonReader(in)), HttpHeaderParser.parseCacheHeaders(response));
+            } catch (IOException | RuntimeException e) {
+                return Response.error(new ParseError(e));
+            }
+        }
+
+        @Override
+        protected void deliverResponse(Page page) {
+            listener.onResponse(page);
+        }
+
+        /** {"songs":[{id, songid, title, artist, swiped_at}], "cursor": "...", "has_more": bool} */
+        private static Page decode(JsonReader r) throws IOException {
+            List<Row> rows = new ArrayList<>(PAGE_SIZE);
+            String next = FIRST_PAGE;
+            boolean more = false;
+
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "songs":
+                        r.beginArray();
+                        while (r.hasNext()) rows.add(decodeRow(r));
+                        r.endArray();
+                        break;
+                    case "cursor":   next = r.nextString();  break;
+                    case "has_more": more = r.nextBoolean(); break;
+                    default:         r.skipValue();
+                }
+            }
+            r.endObject();
+            return new Page(rows, next, more && !rows.isEmpty());
+        }
+
+        private static Row decodeRow(JsonReader r) throws IOException {
+            long rowId = 0, swipedAt = 0;
+            String songId = "", title = "Unknown Title", artist = "Unknown Artist";
+            r.beginObject();
+            while (r.hasNext()) {
+                String field = r.nextName();
+                if (r.peek() == JsonToken.NULL) {
+                    r.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "id":        rowId    = r.nextLong();   break;   // PDO sends numbers as strings;
+                    case "swiped_at": swipedAt = r.nextLong();   break;   // nextLong() accepts both
+                    case "songid":    songId   = r.nextString(); break;
+                    case "title":     title    = r.nextString(); break;
+                    case "artist":    artist   = r.nextString(); break;
+                    default:          r.skipValue();
+                }
+            }
+            r.endObject();
+            return new Row(rowId, swipedAt, likedSong(songId, title, artist));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * On-device recommendation engine.
+ * Wraps a FeatureIndex over the candidate catalogue and answers
+ * “top-K tracks nearest to this MoodPreset, excluding already swiped IDs”
+ * without a round trip to song_recommendations.
+ * Until a catalogue has been installed, isReady() is false and callers keep
+ * using the backend.
+ */
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+public final class LocalRecommender {
+
+    public static final int DEFAULT_K = 100;
+
+    private static final LocalRecommender INSTANCE = new LocalRecommender();
+
+    /** An index and the row → ID mapping of the catalogue it was built from, swapped as one. */
+    private static final class Installed {
+        final FeatureIndex index;
+        final IntFunction<String> idOfRow;
+        Installed(FeatureIndex index, IntFunction<String> idOfRow) { this.index = index; this.idOfRow = idOfRow; }
+    }
+
+    private volatile Installed installed;
+
+    public static LocalRecommender get() { return INSTANCE; }
+
+    private LocalRecommender() {
+        DebugStats.register("local recommender", () -> {
+            Installed current = installed;
+            return current == null ? "not loaded" : current.index.size() + " vectors indexed";
+        });
+    }
+
+    public boolean isReady() { return installed != null; }
+
+    /** Swaps in a freshly built index; idOfRow maps an index row back to its Spotify ID. */
+    public void install(FeatureIndex newIndex, IntFunction<String> newIdOfRow) {
+        installed = new Installed(newIndex, newIdOfRow);
+        Log.d("LOCAL_RECOMMEND", "Installed index with " + newIndex.size() + " tracks");
+    }
+
+    /**
+     * Returns up to k unresolved Song stubs (ID only) nearest to the preset,
+     * skipping IDs for which excluded.test(id) is true.
+     */
+    public List<Song> recommend(MoodSelector.MoodPreset preset, int k, Predicate<String> excluded) {
+        Installed current = installed;                      // one read: index and IDs always match
+        List<Song> out = new ArrayList<>();
+        if (current == null) return out;
+        FeatureIndex idx = current.index;
+        IntFunction<String> ids = current.idOfRow;
+
+        long start = System.nanoTime();
+        int[] rows = idx.nearest(FeatureIndex.queryFor(preset), k,
+                excluded == null ? null : row -> excluded.test(ids.apply(row)));
+        Log.d("LOCAL_RECOMMEND", rows.length + " tracks in " + (System.nanoTime() - start) / 1000 + " µs");
+
+        for (int row : rows) {
+            Song s = new Song("", "", "", null);
+            s.setId(ids.apply(row));
+            out.add(s);
+        }
+        return out;
+    }
+}
@@ -82,6 +82,7 @@ public class LoginActivity extends AppCompatActivity {
                         getSharedPreferences("grooverPrefs", MODE_PRIVATE)
                                 .edit()
                                 .putString("SPOTIFY_TOKEN", token)
+                                .remove("SPOTIFY_USER_ID")   // may be another Spotify account
                                 .apply();
 
                         Toast.makeText(this, "Logged in with Spotify!", Toast.LENGTH_SHORT).show();
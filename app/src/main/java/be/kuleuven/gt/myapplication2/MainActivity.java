@@ -10,6 +10,7 @@ package be.kuleuven.gt.myapplication2;
 import android.app.Dialog;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
@@ -21,21 +22,18 @@ import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.activity.EdgeToEdge;
 
 import com.android.volley.DefaultRetryPolicy;
 import com.android.volley.Request;
-import com.android.volley.toolbox.JsonArrayRequest;
-import com.android.volley.toolbox.JsonObjectRequest;
 import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.yuyakaido.android.cardstackview.*;
 
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.*;
@@ -46,21 +44,18 @@ public class MainActivity extends AppCompatActivity {
     private CardStackView cardStackView;
     private SongCardAdapter adapter;
     private CardStackLayoutManager manager;
+    private CardFeed cardFeed;
 
     // --- User / auth ---
     private String currentUsername;
     private String spotifyToken;
 
     // --- Data structures ---
-    private final List<Song> allRecommendedSongs = new ArrayList<>();
-    private final List<Song> loadedSongs         = new ArrayList<>();
-    private final List<String> swipedIds         = new ArrayList<>();
     private final List<String> likedURIs         = new ArrayList<>();
-
-    private int expectedRecommendations = 0;
-    private int fetchedCount            = 0;
+    private SwipedHistory swipedHistory;
 
     private MoodSelector.MoodPreset currentMoodPreset;
+    private TasteProfileAggregator pendingTasteProfile;   // “Top Songs” fan-in in progress
 
     /** Activity entry-point: sets up UI, listeners, and default mood selection. */
     @Override
@@ -71,6 +66,7 @@ public class MainActivity extends AppCompatActivity {
         // Mood-selector FAB
         FloatingActionButton fabChangeMood = findViewById(R.id.fabChangeMood);
         fabChangeMood.setOnClickListener(v -> showMoodSelectionDialog());
+        fabChangeMood.setOnLongClickListener(v -> showDebugStats());
 
         // Bottom navigation (kept as original if-chain)
         BottomNavigationView bottomNav = findViewById(R.id.bottom_nav);
@@ -99,6 +95,7 @@ public class MainActivity extends AppCompatActivity {
         SharedPreferences prefs = getSharedPreferences("grooverPrefs", MODE_PRIVATE);
         currentUsername = prefs.getString("username", "testuser");
         spotifyToken    = prefs.getString("SPOTIFY_TOKEN", null);
+        swipedHistory   = SwipedHistory.get(this);   // loads the persisted set off the UI thread
 
         // If no Spotify token, redirect to login
         if (spotifyToken == null || spotifyToken.isEmpty()) {
@@ -107,9 +104,13 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
+        // Map the local feature catalogue and pull rows changed since its version
+        CatalogueSync.get(this).sync();
+
         // Create-playlist button
         Button btnCreatePlaylist = findViewById(R.id.btnCreatePlaylist);
         btnCreatePlaylist.setOnClickListener(v -> createPlaylistAndAddSongs());
+        PlaylistExporter.get(this).setListener(exportProgress);
 
         // --- CardStackView configuration ---
         cardStackView = findViewById(R.id.card_stack_view);
@@ -121,7 +122,7 @@ public class MainActivity extends AppCompatActivity {
             @Override public void onCardAppeared(View v, int p) {}
             @Override public void onCardDisappeared(View v, int p) {}
 
-            /** Saves each swipe (like/dislike) and loads more songs when nearing the end. */
+            /** Saves each swipe (like/dislike) and lets the feed refill its lookahead window. */
             @Override
             public void onCardSwiped(Direction direction) {
                 int pos = manager.getTopPosition() - 1;
@@ -129,17 +130,14 @@ public class MainActivity extends AppCompatActivity {
                     Song swipedSong = adapter.getSongList().get(pos);
                     boolean liked   = direction == Direction.Right;
 
-                    if (!swipedIds.contains(swipedSong.getId())) {
-                        swipedIds.add(swipedSong.getId());
+                    if (swipedHistory.add(swipedSong.getId())) {
                         saveSwipeToServer(swipedSong, liked);
                         if (liked) likedURIs.add(swipedSong.getUri());
                         Log.d("SWIPE", (liked ? "Liked: " : "Disliked: ") + swipedSong.getName());
                     }
 
-                    // Preload when only 3 cards remain
-                    if (adapter.getItemCount() - manager.getTopPosition() <= 3) {
-                        loadMoreSongs();
-                    }
+                    PreviewPlayer.get(MainActivity.this).stop();   // the swiped card’s preview ends with it
+                    cardFeed.onTopPositionChanged();
                 }
             }
         });
@@ -157,6 +155,19 @@ public class MainActivity extends AppCompatActivity {
         cardStackView.setLayoutManager(manager);
         cardStackView.setAdapter(adapter);
 
+        // Feed keeps fully resolved cards ahead of the top card
+        cardFeed = new CardFeed(this, adapter, manager::getTopPosition, CardFeed.DEFAULT_LOOKAHEAD,
+                new CardFeed.Listener() {
+                    @Override public void onFeedEmpty() {
+                        Toast.makeText(MainActivity.this,
+                                "No songs found for this mood", Toast.LENGTH_LONG).show();
+                    }
+                    @Override public void onBatchFailed() {
+                        Toast.makeText(MainActivity.this,
+                                "Failed to load song details", Toast.LENGTH_SHORT).show();
+                    }
+                });
+
         // Default mood
         currentMoodPreset = MoodSelector.getPartyPreset();
 
@@ -164,29 +175,31 @@ public class MainActivity extends AppCompatActivity {
         showMoodSelectionDialog();
     }
 
-    /** Retrieves previously swiped song-IDs and then generates recommendations. */
-    private void fetchSwipedIdsAndRecommend() {
-        String url = "https://studev.groept.be/api/a24pt103/get_swiped_song_ids/" + currentUsername;
+    /** Pushes any queued swipes and stops the preview as soon as the swipe screen leaves the foreground. */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        SwipeOutbox.get(this).flushNow();
+        PreviewPlayer.get(this).stop();
+    }
 
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    for (int i = 0; i < response.length(); i++) {
-                        try {
-                            swipedIds.add(response.getJSONObject(i).getString("song_id"));
-                        } catch (JSONException e) { e.printStackTrace(); }
-                    }
-                    fetchTopTrackAndRecommend();
-                },
-                error -> {
-                    error.printStackTrace();
-                    fetchTopTrackAndRecommend();
-                });
+    /** The swipe screen owns the preview player; free it with the screen. */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        PreviewPlayer.get(this).release();
+        PlaylistExporter.get(this).removeListener(exportProgress);
+    }
 
-        Volley.newRequestQueue(this).add(request);
+    /** Brings the swiped history up to date (only swipes since the last sync) and then recommends. */
+    private void fetchSwipedIdsAndRecommend() {
+        swipedHistory.sync(currentUsername, this::fetchTopTrackAndRecommend);
     }
 
-    /** Calls Spotify’s “top tracks” endpoint, then fetches audio-features for each track. */
+    /**
+     * Calls Spotify’s “top tracks” endpoint, fetches audio-features for each track,
+     * and fans the answers in to one taste profile before asking for recommendations.
+     */
     private void fetchTopTrackAndRecommend() {
         Log.d("DEBUG_FLOW", "fetchTopTrackAndRecommend() started");
 
@@ -196,301 +209,98 @@ public class MainActivity extends AppCompatActivity {
                 response -> {
                     try {
                         JSONArray items = new JSONObject(response).getJSONArray("items");
+                        List<String> topIds = new ArrayList<>();
                         for (int i = 0; i < items.length(); i++) {
-                            String id = items.getJSONObject(i).getString("id");
-                            checkAudioFeatures(id);
+                            topIds.add(items.getJSONObject(i).getString("id"));
                         }
-                    } catch (Exception e) { e.printStackTrace(); }
-                },
-                error -> error.printStackTrace()) {
-            @Override public Map<String, String> getHeaders() {
-                Map<String, String> headers = new HashMap<>();
-                headers.put("Authorization", "Bearer " + spotifyToken);
-                return headers;
-            }
-        };
-        Volley.newRequestQueue(this).add(request);
-    }
-
-    /** Fetches stored audio-features for a Spotify track from Groover’s backend. */
-    private void checkAudioFeatures(String trackId) {
-        String url = "https://studev.groept.be/api/a24pt103/audio_features_by_id/" + trackId;
-
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    if (response.length() > 0) {
-                        try {
-                            JSONObject o = response.getJSONObject(0);
-                            fetchRecommendations(
-                                    o.getDouble("energy"), o.getInt("key"), o.getDouble("loudness"),
-                                    o.getInt("mode"), o.getDouble("speechiness"), o.getDouble("acousticness"),
-                                    o.getDouble("instrumentalness"), o.getDouble("liveness"),
-                                    o.getDouble("valence"), o.getDouble("tempo"));
-                        } catch (Exception e) { e.printStackTrace(); }
-                    }
-                },
-                error -> error.printStackTrace());
-
-        Volley.newRequestQueue(this).add(request);
-    }
-
-    /** Retrieves recommendation IDs from Groover backend given a set of audio-features. */
-    private void fetchRecommendations(double energy, int key, double loudness, int mode,
-                                      double speechiness, double acousticness, double instrumentalness,
-                                      double liveness, double valence, double tempo) {
-
-        String url = "https://studev.groept.be/api/a24pt103/song_recommendations/"
-                + energy + "/" + key + "/" + loudness + "/" + mode + "/"
-                + speechiness + "/" + acousticness + "/" + instrumentalness + "/"
-                + liveness + "/" + valence + "/" + tempo + "/" + currentUsername;
-
-        Log.d("RECOMMEND", "Fetching recommendations from: " + url);
-
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    expectedRecommendations = response.length();
-                    fetchedCount            = 0;
-                    allRecommendedSongs.clear();
-                    loadedSongs.clear();
-
-                    List<String> batchIds = new ArrayList<>();
-                    for (int i = 0; i < response.length(); i++) {
-                        try {
-                            String trackId = response.getJSONObject(i).getString("id");
-                            batchIds.add(trackId);          // keep every ID (no filtering)
-                        } catch (Exception e) { e.printStackTrace(); }
-                    }
-                    fetchSpotifyDetailsInBatch(batchIds);
-                },
-                error -> error.printStackTrace());
-
-        Volley.newRequestQueue(this).add(request);
-    }
-
-    /** Pulls full track details for a list of Spotify IDs (max 50 per call). */
-    private void fetchSpotifyDetailsInBatch(List<String> trackIds) {
-        if (trackIds.isEmpty()) return;
 
-        String idsParam = String.join(",", trackIds);
-        String url      = "https://api.spotify.com/v1/tracks?ids=" + idsParam;
-        Log.d("SPOTIFY_BATCH_URL", "Calling: " + url);
-
-        JsonObjectRequest request = new JsonObjectRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    try {
-                        JSONArray tracks = response.getJSONArray("tracks");
-                        List<Song> newBatch = new ArrayList<>();
-
-                        for (int i = 0; i < tracks.length(); i++) {
-                            JSONObject obj   = tracks.getJSONObject(i);
-                            String name      = obj.optString("name", "Unknown Title");
-                            String preview   = obj.optString("preview_url", null);
-                            String uri       = obj.optString("uri", "");
-                            String id        = obj.optString("id", "");
-                            String artist    = "Unknown Artist";
-
-                            JSONArray artists = obj.optJSONArray("artists");
-                            if (artists != null && artists.length() > 0) {
-                                artist = artists.getJSONObject(0).optString("name", "Unknown Artist");
+                        if (pendingTasteProfile != null) pendingTasteProfile.cancel();
+                        pendingTasteProfile = new TasteProfileAggregator(topIds.size(), (profile, used) -> {
+                            pendingTasteProfile = null;
+                            if (profile == null) {
+                                Toast.makeText(this, "No audio features for your top songs", Toast.LENGTH_SHORT).show();
+                                return;
                             }
-
-                            String cover = obj.getJSONObject("album")
-                                    .getJSONArray("images")
-                                    .getJSONObject(0)
-                                    .optString("url", "");
-
-                            Song s = new Song(name, artist, cover, preview);
-                            s.setId(id);
-                            s.setUri(uri);
-                            newBatch.add(s);
-                        }
-
-                        runOnUiThread(() -> {
-                            adapter.updateData(newBatch);   // replace current cards
-                            manager.setTopPosition(0);
-                            cardStackView.requestLayout();
-                        });
-
-                    } catch (Exception e) {
-                        Log.e("SPOTIFY_BATCH_ERR", "Parsing error", e);
-                        runOnUiThread(() -> {
-                            Toast.makeText(MainActivity.this, "Error loading song details", Toast.LENGTH_SHORT).show();
-                            adapter.updateData(new ArrayList<>());
-                            manager.setTopPosition(0);
-                            cardStackView.requestLayout();
+                            Log.d("RECOMMEND", "Taste profile built from " + used + " top tracks");
+                            currentMoodPreset = profile;
+                            loadNewSong();   // one recommendation query, one batched detail lookup
                         });
-                    }
+                        for (String id : topIds) checkAudioFeatures(id, pendingTasteProfile);
+                    } catch (Exception e) { e.printStackTrace(); }
                 },
-                error -> {
-                    Log.e("SPOTIFY_BATCH_ERR", "Request failed: " + error, error);
-                    runOnUiThread(() -> {
-                        Toast.makeText(MainActivity.this, "Failed to load song details", Toast.LENGTH_SHORT).show();
-                        adapter.updateData(new ArrayList<>());
-                        manager.setTopPosition(0);
-                        cardStackView.requestLayout();
-                    });
-                }) {
+                error -> error.printStackTrace()) {
             @Override public Map<String, String> getHeaders() {
                 Map<String, String> headers = new HashMap<>();
                 headers.put("Authorization", "Bearer " + spotifyToken);
                 return headers;
             }
         };
-
-        Volley.newRequestQueue(this).add(request);
+        GrooverNetwork.get(this).add(request);
     }
 
-    /** Adds the next five songs from allRecommendedSongs into the card stack. */
-    private void loadMoreSongs() {
-        int start = loadedSongs.size();
-        int end   = Math.min(start + 5, allRecommendedSongs.size());
-
-        if (start < end) {
-            List<Song> newBatch = new ArrayList<>(allRecommendedSongs.subList(start, end));
-            loadedSongs.addAll(newBatch);
-
-            runOnUiThread(() -> adapter.addData(newBatch));
-        }
+    /** Fetches stored audio-features for a Spotify track (batched) and hands them to the aggregator. */
+    private void checkAudioFeatures(String trackId, TasteProfileAggregator aggregator) {
+        AudioFeaturesBatcher.get(this).request(trackId, features -> {
+            if (features != null) aggregator.add(features);
+            else aggregator.skip();
+        });
     }
 
-    /** Persists a single swipe (like / dislike) to the Groover backend. */
+    /** Queues a single swipe (like / dislike) in the outbox; it is uploaded in a batch. */
     private void saveSwipeToServer(Song song, boolean liked) {
-        String url = "https://studev.groept.be/api/a24pt103/save_user_swipes";
-
-        StringRequest request = new StringRequest(
-                Request.Method.POST, url,
-                response -> Log.d("SWIPE", "Swipe saved: " + song.getId()),
-                error -> Log.e("SWIPE", "Swipe failed", error)) {
-            @Override
-            protected Map<String, String> getParams() {
-                Map<String, String> p = new HashMap<>();
-                p.put("username", currentUsername);
-                p.put("songid",  song.getId());
-                p.put("liked",   liked ? "1" : "0");
-                p.put("title",   song.getName());
-                p.put("artist",  song.getArtist());
-                return p;
-            }
-        };
-
-        Volley.newRequestQueue(this).add(request);
+        SwipeOutbox.get(this).enqueue(currentUsername, song, liked);
     }
 
-    /** Creates a private playlist on Spotify and fills it with all liked URIs. */
+    /**
+     * Exports all liked URIs as a private Spotify playlist (chunked, checkpointed);
+     * a paused export of this user is resumed instead of starting a new one, one
+     * left by another account can only be discarded.
+     */
     private void createPlaylistAndAddSongs() {
+        PlaylistExporter exporter = PlaylistExporter.get(this);
+        String owner = exporter.pausedOwner();
+        if (owner != null && owner.equals(currentUsername)) {
+            exporter.resume();
+            return;
+        }
+        if (owner != null) {
+            new AlertDialog.Builder(this)
+                    .setTitle("Unfinished export")
+                    .setMessage("An export started by " + owner + " was interrupted. Discard it to export your own liked songs?")
+                    .setPositiveButton("Discard", (d, which) -> exporter.discard())
+                    .setNegativeButton("Cancel", null)
+                    .show();
+            return;
+        }
         if (likedURIs.isEmpty()) {
             Toast.makeText(this, "No liked songs to create playlist", Toast.LENGTH_SHORT).show();
             return;
         }
-
-        // Step 1: get current user ID
-        String url = "https://api.spotify.com/v1/me";
-        JsonObjectRequest userRequest = new JsonObjectRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    try {
-                        String userId      = response.getString("id");
-                        String playlistUrl = "https://api.spotify.com/v1/users/" + userId + "/playlists";
-
-                        // Step 2: create playlist
-                        JSONObject body = new JSONObject();
-                        body.put("name", "Groover Playlist");
-                        body.put("description", "Created by Groover App");
-                        body.put("public", false);
-
-                        JsonObjectRequest createRequest = new JsonObjectRequest(
-                                Request.Method.POST, playlistUrl, body,
-                                createResp -> {
-                                    try {
-                                        String playlistId = createResp.getString("id");
-                                        addTracksToPlaylist(playlistId);   // Step 3
-                                    } catch (Exception e) { e.printStackTrace(); }
-                                },
-                                error -> Toast.makeText(this, "Create failed", Toast.LENGTH_SHORT).show()) {
-                            @Override public Map<String, String> getHeaders() {
-                                Map<String, String> h = new HashMap<>();
-                                h.put("Authorization", "Bearer " + spotifyToken);
-                                h.put("Content-Type",  "application/json");
-                                return h;
-                            }
-                        };
-                        Volley.newRequestQueue(this).add(createRequest);
-
-                    } catch (Exception e) { e.printStackTrace(); }
-                },
-                error -> Toast.makeText(this, "Get user ID failed", Toast.LENGTH_SHORT).show()) {
-            @Override public Map<String, String> getHeaders() {
-                Map<String, String> h = new HashMap<>();
-                h.put("Authorization", "Bearer " + spotifyToken);
-                return h;
-            }
-        };
-        Volley.newRequestQueue(this).add(userRequest);
+        if (!exporter.start(currentUsername, likedURIs)) {
+            Toast.makeText(this, "Previous export is still loading, try again in a moment", Toast.LENGTH_SHORT).show();
+        }
     }
 
-    /** Adds collected likedURIs to the given playlist ID. */
-    private void addTracksToPlaylist(String playlistId) {
-        String url  = "https://api.spotify.com/v1/playlists/" + playlistId + "/tracks";
-        JSONObject body = new JSONObject();
-        try {
-            JSONArray uris = new JSONArray();
-            for (String uri : likedURIs) uris.put(uri);
-            body.put("uris", uris);
-        } catch (JSONException e) { e.printStackTrace(); }
-
-        JsonObjectRequest request = new JsonObjectRequest(
-                Request.Method.POST, url, body,
-                response -> savePlaylistIdAndClearSwipes(playlistId),
-                error -> Toast.makeText(this, "Failed to add tracks", Toast.LENGTH_SHORT).show()) {
-            @Override public Map<String, String> getHeaders() {
-                Map<String, String> h = new HashMap<>();
-                h.put("Authorization", "Bearer " + spotifyToken);
-                h.put("Content-Type",  "application/json");
-                return h;
+    /** Shows the export’s progress on the create-playlist button. */
+    private final PlaylistExporter.Listener exportProgress = new PlaylistExporter.Listener() {
+        @Override
+        public void onProgress(PlaylistExporter.Stage stage, int added, int total) {
+            Button button = findViewById(R.id.btnCreatePlaylist);
+            switch (stage) {
+                case CREATING: button.setText("CREATING PLAYLIST…"); break;
+                case ADDING:   button.setText("ADDING SONGS " + added + "/" + total); break;
+                case SAVING:   button.setText("SAVING PLAYLIST…"); break;
+                case PAUSED:   button.setText("RESUME EXPORT (" + added + "/" + total + ")"); break;
+                default:       button.setText("CREATE PLAYLIST");
             }
-        };
-
-        Volley.newRequestQueue(this).add(request);
-    }
-
-    /** Stores the playlist ID in Groover DB, then clears local swipe history. */
-    private void savePlaylistIdAndClearSwipes(String playlistId) {
-        String url = "https://studev.groept.be/api/a24pt103/add_user_playlist/"
-                + currentUsername + "/" + playlistId;
-
-        StringRequest req = new StringRequest(
-                Request.Method.GET, url,
-                response -> {
-                    clearSwipes(playlistId);
-                    Toast.makeText(this, "Playlist created and songs added!", Toast.LENGTH_SHORT).show();
-                },
-                error -> {
-                    Log.e("PLAYLIST_DEBUG", "Error saving playlist: " + error.getMessage());
-                    Toast.makeText(this, "Failed to save playlist", Toast.LENGTH_SHORT).show();
-                });
-        Volley.newRequestQueue(this).add(req);
-    }
-
-    /** Clears stored swipes once a playlist has been created. */
-    private void clearSwipes(String playlistId) {
-        String url = "https://studev.groept.be/api/a24pt103/clear_user_swipes/"
-                + currentUsername + "/" + playlistId;
+        }
 
-        StringRequest request = new StringRequest(
-                Request.Method.GET, url,
-                response -> {
-                    swipedIds.clear();
-                    likedURIs.clear();
-                },
-                error -> {
-                    Log.e("SWIPES", "Failed to clear swipe table", error);
-                    Toast.makeText(this, "Failed to clear swipes", Toast.LENGTH_SHORT).show();
-                });
-        Volley.newRequestQueue(this).add(request);
-    }
+        @Override
+        public void onFinished(String playlistId, List<String> uris) {
+            likedURIs.removeAll(uris);                   // likes made during the export stay queued
+            Toast.makeText(MainActivity.this, "Playlist created and songs added!", Toast.LENGTH_SHORT).show();
+        }
+    };
 
     /** Shows the bottom-sheet mood selector dialog and triggers song reload. */
     private void showMoodSelectionDialog() {
@@ -513,6 +323,9 @@ public class MainActivity extends AppCompatActivity {
             else if (v.getId() == R.id.btnHappy)   currentMoodPreset = MoodSelector.getHappyPreset();
             else if (v.getId() == R.id.btnSad)     currentMoodPreset = MoodSelector.getSadPreset();
 
+            if (pendingTasteProfile != null) pendingTasteProfile.cancel();   // explicit mood wins
+            pendingTasteProfile = null;
+
             Toast.makeText(this, "Loading new songs for selected mood...", Toast.LENGTH_SHORT).show();
             dialog.dismiss();
             loadNewSong();
@@ -536,14 +349,36 @@ public class MainActivity extends AppCompatActivity {
         dialog.show();
     }
 
-    /** Requests recommendations for the currentMoodPreset and refreshes the card stack. */
-    private void loadNewSong() {
-        // Clear local lists + reset card stack
-        allRecommendedSongs.clear();
-        loadedSongs.clear();
+    /** Clears every card and rewinds the stack to the first position. */
+    private void resetDeck() {
         adapter.updateData(new ArrayList<>());
         manager.setTopPosition(0);
         cardStackView.requestLayout();
+    }
+
+    /** Debug builds only: shows live network / cache counters collected in DebugStats. */
+    private boolean showDebugStats() {
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) == 0) return false;
+        new AlertDialog.Builder(this)
+                .setTitle("Groover debug stats")
+                .setMessage(DebugStats.snapshot())
+                .setPositiveButton("OK", null)
+                .show();
+        return true;
+    }
+
+    /** Requests recommendations for the currentMoodPreset and refreshes the card stack. */
+    private void loadNewSong() {
+        // Reset card stack
+        resetDeck();
+
+        // Answer on-device when the feature catalogue is loaded
+        LocalRecommender local = LocalRecommender.get();
+        if (local.isReady()) {
+            cardFeed.start(local.recommend(currentMoodPreset, LocalRecommender.DEFAULT_K, swipedHistory::contains),
+                    spotifyToken);
+            return;
+        }
 
         // Build backend URL with mood values
         String url = String.format(Locale.US,
@@ -555,54 +390,20 @@ public class MainActivity extends AppCompatActivity {
 
         Log.d("MOOD_DEBUG", "Loading songs with URL: " + url);
 
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    try {
-                        if (response.length() > 0) {
-                            for (int i = 0; i < response.length(); i++) {
-                                JSONObject s = response.getJSONObject(i);
-                                Song song = new Song(
-                                        s.optString("name",    "Unknown"),
-                                        s.optString("artists", "Unknown Artist"),
-                                        "", null);
-                                song.setId(s.getString("id"));
-                                allRecommendedSongs.add(song);
-                            }
-                            // Load first batch
-                            List<String> firstIds = new ArrayList<>();
-                            for (int i = 0; i < Math.min(5, allRecommendedSongs.size()); i++) {
-                                firstIds.add(allRecommendedSongs.get(i).getId());
-                            }
-                            fetchSpotifyDetailsInBatch(firstIds);
-                        } else {
-                            Toast.makeText(MainActivity.this,
-                                    "No songs found for this mood", Toast.LENGTH_LONG).show();
-                            adapter.updateData(new ArrayList<>());
-                            manager.setTopPosition(0);
-                            cardStackView.requestLayout();
-                        }
-                    } catch (JSONException e) {
-                        Log.e("MOOD_DEBUG", "Parsing error", e);
-                        Toast.makeText(MainActivity.this, "Error processing songs", Toast.LENGTH_SHORT).show();
-                        adapter.updateData(new ArrayList<>());
-                        manager.setTopPosition(0);
-                        cardStackView.requestLayout();
-                    }
-                },
+        SongListRequest request = new SongListRequest(
+                url, null, SpotifyJsonDecoder::decodeRecommendations,
+                songs -> cardFeed.start(songs, spotifyToken),
                 error -> {
-                    Log.e("MOOD_DEBUG", "Network error", error);
+                    Log.e("MOOD_DEBUG", "Network or parsing error", error);
                     Toast.makeText(MainActivity.this,
                             "Error loading songs. Please try again.", Toast.LENGTH_SHORT).show();
-                    adapter.updateData(new ArrayList<>());
-                    manager.setTopPosition(0);
-                    cardStackView.requestLayout();
+                    resetDeck();
                 });
 
         // Increase timeout for slower requests
         request.setRetryPolicy(new DefaultRetryPolicy(
                 15000, 3, DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
 
-        Volley.newRequestQueue(this).add(request);
+        GrooverNetwork.get(this).add(request);
     }
 }
@@ -3,31 +3,34 @@ package be.kuleuven.gt.myapplication2;
 /**
  * Displays another user’s public profile:
  * • username, bio, liked songs, and profile picture
+ * • bio, picture version and like summary come from one get_profile call
+ *   that is revalidated by ETag, so an unchanged profile costs one 304
+ * • liked songs are a recycled list paged through LikedSongPager, so the
+ *   first rows show before the rest of the history is loaded
  * • bottom-navigation for quick app navigation
  */
 import android.content.Intent;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
-import android.util.Base64;
 import android.util.Log;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.android.volley.Request;
-import com.android.volley.toolbox.JsonArrayRequest;
-import com.android.volley.toolbox.Volley;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.util.List;
 
 public class OtherUserProfileActivity extends AppCompatActivity {
 
     private TextView tvUsername, tvBio, tvLikedSongs;
     private ImageView profileImage;
+    private RecyclerView rvLikedSongs;
+    private LikedSongAdapter likedAdapter;
+    private LikedSongPager likedPager;
 
     private String username;
 
@@ -45,12 +48,12 @@ public class OtherUserProfileActivity extends AppCompatActivity {
         tvBio         = findViewById(R.id.tvBio);
         tvLikedSongs  = findViewById(R.id.tvLikedSongs);
         profileImage  = findViewById(R.id.profileImage);
+        rvLikedSongs  = findViewById(R.id.rvLikedSongs);
         tvUsername.setText(username);
 
         // Fetch and display profile data
-        fetchBio();
         fetchLikedSongs();
-        fetchProfileImage();
+        fetchProfile();
 
         // Bottom-navigation (kept as original if-chain)
         BottomNavigationView bottomNav = findViewById(R.id.bottom_nav);
@@ -76,94 +79,58 @@ public class OtherUserProfileActivity extends AppCompatActivity {
         });
     }
 
-    /** Retrieves the user’s bio from the backend. */
-    private void fetchBio() {
-        String url = "https://studev.groept.be/api/a24pt103/get_bio/" + username;
-
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    try {
-                        if (response.length() > 0) {
-                            String bio = response.getJSONObject(0).getString("bio");
-                            tvBio.setText(bio.isEmpty() ? "No bio available." : bio);
-                        } else {
-                            tvBio.setText("No bio found.");
-                        }
-                    } catch (JSONException e) {
-                        tvBio.setText("Error loading bio.");
-                        e.printStackTrace();
-                    }
-                },
-                error -> {
-                    Toast.makeText(this, "Failed to load bio", Toast.LENGTH_SHORT).show();
-                    error.printStackTrace();
-                });
-
-        Volley.newRequestQueue(this).add(request);
+    /** Loads bio, picture hashes and like summary in one conditional request. */
+    private void fetchProfile() {
+        UserProfile.fetch(this, username, new UserProfile.Callback() {
+            @Override public void onProfile(UserProfile profile) {
+                tvBio.setText(profile.bio.isEmpty() ? "No bio available." : profile.bio);
+                likedPager.latestKnown(profile.latestLike, profile.likeCount);
+                fetchProfileImage();                    // hashes were just recorded: no meta call
+            }
+            @Override public void onError() {
+                Toast.makeText(OtherUserProfileActivity.this, "Failed to load bio", Toast.LENGTH_SHORT).show();
+                likedPager.latestKnown(null, -1);
+                fetchProfileImage();
+            }
+        });
     }
 
-    /** Retrieves and formats the list of liked songs. */
+    /** Shows the user’s likes page by page (read-only rows, no action buttons). */
     private void fetchLikedSongs() {
-        String url = "https://studev.groept.be/api/a24pt103/get_groover_liked_songs/" + username;
-
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    StringBuilder sb = new StringBuilder();
-                    try {
-                        for (int i = 0; i < response.length(); i++) {
-                            JSONObject song = response.getJSONObject(i);
-                            sb.append("• ")
-                                    .append(song.getString("title"))
-                                    .append(" – ")
-                                    .append(song.getString("artist"))
-                                    .append("\n");
-                        }
-                        tvLikedSongs.setText(
-                                sb.length() > 0 ? sb.toString() : "No liked songs yet."
-                        );
-                    } catch (JSONException e) {
-                        tvLikedSongs.setText("Error loading songs.");
-                        e.printStackTrace();
-                    }
-                },
-                error -> {
-                    tvLikedSongs.setText("Failed to load liked songs.");
-                    error.printStackTrace();
-                });
-
-        Volley.newRequestQueue(this).add(request);
+        LinearLayoutManager layout = new LinearLayoutManager(this);
+        rvLikedSongs.setLayoutManager(layout);
+        likedAdapter = new LikedSongAdapter(null, null);
+        rvLikedSongs.setAdapter(likedAdapter);
+
+        likedPager = new LikedSongPager(this, username, new LikedSongPager.Listener() {
+            @Override public void onSongs(List<Song> songs, boolean hasMore) {
+                tvLikedSongs.setText(songs.isEmpty() && !hasMore ? "No liked songs yet." : "Liked songs");
+                likedAdapter.submitList(songs);
+            }
+            @Override public void onError() {
+                if (likedAdapter.getItemCount() == 0) tvLikedSongs.setText("Failed to load liked songs.");
+            }
+        });
+        likedPager.startAwaitingLatest();   // refresh only if fetchProfile() reports new likes
+
+        rvLikedSongs.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView rv, int dx, int dy) {
+                if (dy > 0 && layout.findLastVisibleItemPosition() >= likedAdapter.getItemCount() - 10) {
+                    likedPager.loadMore();
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (likedPager != null) likedPager.close();
     }
 
-    /** Downloads the Base64-encoded profile image and displays it. */
+    /** Shows the profile picture (rendition picked and cached by ProfileImageLoader). */
     private void fetchProfileImage() {
-        String url = "https://studev.groept.be/api/a24pt103/get_profile_image/" + username;
-        Log.d("ProfileImage", "Fetching profile image");
-
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    try {
-                        if (response.length() > 0) {
-                            JSONObject obj = response.getJSONObject(0);
-                            if (obj.has("image_data") && !obj.isNull("image_data")) {
-                                String base64 = obj.getString("image_data");
-                                if (!base64.isEmpty()) {
-                                    byte[] bytes = Base64.decode(base64, Base64.DEFAULT);
-                                    profileImage.setImageBitmap(
-                                            BitmapFactory.decodeByteArray(bytes, 0, bytes.length)
-                                    );
-                                }
-                            }
-                        }
-                    } catch (JSONException e) { e.printStackTrace(); }
-                },
-                error -> {
-                    Toast.makeText(this, "Failed to load profile image", Toast.LENGTH_SHORT).show();
-                    error.printStackTrace();
-                });
-
-        Volley.newRequestQueue(this).add(request);
+        ProfileImageLoader.get(this).load(username, profileImage);
     }
 }
@@ -0,0 +1,597 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Exports the session’s liked tracks as a private Spotify playlist, resumably.
+ * • the Spotify user ID is cached in grooverPrefs, so /v1/me is only asked once
+ *   per Spotify login
+ * • URIs are added in chunks of CHUNK_SIZE (Spotify’s per-request limit) with up
+ *   to MAX_IN_FLIGHT chunks pipelined; tracks keep their order within a chunk,
+ *   chunks may land in the playlist out of order
+ * • every step (playlist created, chunk added, playlist recorded in Groover) is
+ *   checkpointed in an AtomicFile: a failed or interrupted export resumes where
+ *   it stopped instead of creating a second playlist
+ * • the newest server swipe ID is fixed when the job starts; finishing marks only
+ *   swipes up to it as used, so likes made during the export stay for the next one
+ * • a failed chunk is retried with backoff (Retry-After on 429) before the job
+ *   pauses; progress goes to one Listener
+ * • after a timeout or 5xx a chunk may have been added anyway: the pipeline drains
+ *   and the playlist is read back before that chunk is sent again, so a retry
+ *   never adds tracks twice
+ * All public methods must be called on the UI thread.
+ */
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.JsonObjectRequest;
+import com.android.volley.toolbox.StringRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class PlaylistExporter {
+
+    private static final String SPOTIFY_API = "https://api.spotify.com/v1/";
+    private static final String GROOVER_API = "https://studev.groept.be/api/a24pt103/";
+
+    static final int CHUNK_SIZE = 100;                  // Spotify’s limit per add-items request
+    private static final int  MAX_IN_FLIGHT = 3;
+    private static final int  MAX_ATTEMPTS  = 3;        // per chunk, before the job pauses
+    private static final long RETRY_BASE_MS = 1_000;
+
+    public enum Stage { IDLE, CREATING, ADDING, SAVING, PAUSED }
+
+    /** Export progress, delivered on the UI thread. */
+    public interface Listener {
+        void onProgress(Stage stage, int added, int total);
+        /** uris are the exported tracks; likes made after start() are not among them. */
+        void onFinished(String playlistId, List<String> uris);
+    }
+
+    /** The checkpointed export. */
+    private static final class Job {
+        final String owner;
+        final List<String> uris;
+        final boolean[] chunkDone;
+        final boolean[] unverified;                      // failed ambiguously; may be in the playlist
+        long lastSwipeId = -1;                           // swipe boundary; -1 until fetched
+        String playlistId;                               // null until created on Spotify
+        boolean recorded;                                // add_user_playlist done
+
+        Job(String owner, List<String> uris) {
+            this.owner     = owner;
+            this.uris      = uris;
+            this.chunkDone = new boolean[(uris.size() + CHUNK_SIZE - 1) / CHUNK_SIZE];
+            this.unverified = new boolean[chunkDone.length];
+        }
+
+        List<String> chunk(int i) {
+            return uris.subList(i * CHUNK_SIZE, Math.min(uris.size(), (i + 1) * CHUNK_SIZE));
+        }
+
+        int added() {
+            int n = 0;
+            for (int i = 0; i < chunkDone.length; i++) {
+                if (chunkDone[i]) n += Math.min(CHUNK_SIZE, uris.size() - i * CHUNK_SIZE);
+            }
+            return n;
+        }
+
+        int nextChunk(boolean[] inFlight) {
+            for (int i = 0; i < chunkDone.length; i++) if (!chunkDone[i] && !inFlight[i]) return i;
+            return -1;
+        }
+
+        boolean anyUnverified() {
+            for (boolean u : unverified) if (u) return true;
+            return false;
+        }
+
+        boolean allAdded() {
+            for (boolean done : chunkDone) if (!done) return false;
+            return true;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONArray done = new JSONArray();
+            for (int i = 0; i < chunkDone.length; i++) if (chunkDone[i]) done.put(i);
+            JSONArray unsure = new JSONArray();
+            for (int i = 0; i < unverified.length; i++) if (unverified[i]) unsure.put(i);
+            JSONObject o = new JSONObject()
+                    .put("owner", owner).put("uris", new JSONArray(uris))
+                    .put("done", done).put("recorded", recorded).put("last_swipe_id", lastSwipeId)
+                    .put("unverified", unsure);
+            if (playlistId != null) o.put("playlist_id", playlistId);
+            return o;
+        }
+
+        static Job fromJson(JSONObject o) throws JSONException {
+            JSONArray arr = o.getJSONArray("uris");
+            List<String> uris = new ArrayList<>(arr.length());
+            for (int i = 0; i < arr.length(); i++) uris.add(arr.getString(i));
+            Job job = new Job(o.getString("owner"), uris);
+            JSONArray done = o.getJSONArray("done");
+            for (int i = 0; i < done.length(); i++) job.chunkDone[done.getInt(i)] = true;
+            JSONArray unsure = o.optJSONArray("unverified");
+            if (unsure != null) for (int i = 0; i < unsure.length(); i++) job.unverified[unsure.getInt(i)] = true;
+            job.playlistId = o.optString("playlist_id", null);
+            job.recorded    = o.optBoolean("recorded");
+            job.lastSwipeId = o.optLong("last_swipe_id", -1);
+            return job;
+        }
+    }
+
+    private static volatile PlaylistExporter instance;
+
+    private final Context appContext;
+    private final AtomicFile file;
+
+    private Job job;
+    private Stage stage = Stage.IDLE;
+    private boolean running = false;
+    private boolean stopping = false;                    // a chunk gave up: dispatch nothing new
+    private boolean[] chunkInFlight = new boolean[0];
+    private int[] attempts = new int[0];
+    private int inFlight = 0;
+    private boolean verifying = false;                   // reading the playlist back
+    private int verifyAttempts = 0;
+    private int generation = 0;                          // bumped per run; late chunk answers are dropped
+    private boolean restored = false;
+    private Listener listener;
+
+    public static PlaylistExporter get(Context context) {
+        if (instance == null) {
+            synchronized (PlaylistExporter.class) {
+                if (instance == null) instance = new PlaylistExporter(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private PlaylistExporter(Context appContext) {
+        this.appContext = appContext;
+        this.file       = new AtomicFile(new File(appContext.getFilesDir(), "playlist_export.json"));
+        DebugStats.register("playlist export", () -> job == null ? "idle"
+                : stage + " " + job.added() + "/" + job.uris.size() + ", in flight=" + inFlight);
+
+        // A job left by the previous process waits, paused, for resume()
+        AppExecutors.io().execute(() -> {
+            Job saved = readFromDisk();
+            AppExecutors.main().execute(() -> {
+                if (job == null && saved != null) {
+                    job   = saved;
+                    stage = Stage.PAUSED;
+                }
+                restored = true;
+                notifyListener();
+            });
+        });
+    }
+
+    public void setListener(Listener l) {
+        listener = l;
+        notifyListener();
+    }
+
+    /** Detaches l, unless a newer screen has attached meanwhile. */
+    public void removeListener(Listener l) {
+        if (listener == l) listener = null;
+    }
+
+    /** True if an unfinished export is waiting for resume(). */
+    public boolean hasPausedJob() {
+        return job != null && !running;
+    }
+
+    /** Username the paused export belongs to, or null if nothing is paused. */
+    public String pausedOwner() {
+        return hasPausedJob() ? job.owner : null;
+    }
+
+    /** Drops a paused export and its checkpoint, e.g. one left behind by another account. */
+    public void discard() {
+        if (!hasPausedJob()) return;
+        job = null;
+        generation++;
+        AppExecutors.io().execute(this::deleteFromDisk);
+        setStage(Stage.IDLE);
+    }
+
+    /** Starts exporting uris for username; returns false if another export is still unfinished. */
+    public boolean start(String username, List<String> uris) {
+        if (!restored || job != null || uris.isEmpty()) return false;
+        job = new Job(username, new ArrayList<>(uris));
+        persist();
+        run();
+        return true;
+    }
+
+    /** Continues a paused export from its last checkpoint. */
+    public void resume() {
+        if (job != null && !running) run();
+    }
+
+    // --- Pipeline ---
+
+    private void run() {
+        running  = true;
+        stopping = false;
+        verifying = false;
+        verifyAttempts = 0;
+        generation++;
+        if (job.lastSwipeId < 0) {
+            setStage(Stage.CREATING);
+            resolveSwipeBoundary();
+        } else if (job.playlistId == null) {
+            setStage(Stage.CREATING);
+            resolveUserId(this::createPlaylist);
+        } else if (!job.allAdded()) {
+            setStage(Stage.ADDING);
+            chunkInFlight = new boolean[job.chunkDone.length];
+            attempts      = new int[job.chunkDone.length];
+            pump();
+        } else {
+            setStage(Stage.SAVING);
+            if (!job.recorded) recordPlaylist();
+            else               clearSwipes();
+        }
+    }
+
+    /** Fixes the last swipe this export covers, before anything is created on Spotify. */
+    private void resolveSwipeBoundary() {
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET,
+                GROOVER_API + "get_last_swipe_id/" + job.owner, null,
+                response -> {
+                    job.lastSwipeId = response.optLong("last_swipe_id", 0);
+                    persist();
+                    run();
+                },
+                error -> pause("Get swipe boundary failed", error));
+        request.setShouldCache(false);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private interface UserIdCallback { void onUserId(String userId); }
+
+    private void resolveUserId(UserIdCallback callback) {
+        SharedPreferences prefs = prefs();
+        String cached = prefs.getString("SPOTIFY_USER_ID", null);
+        if (cached != null) {
+            callback.onUserId(cached);
+            return;
+        }
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, SPOTIFY_API + "me", null,
+                response -> {
+                    String userId = response.optString("id", null);
+                    if (userId == null) {
+                        pause("Spotify returned no user ID", null);
+                        return;
+                    }
+                    prefs.edit().putString("SPOTIFY_USER_ID", userId).apply();
+                    callback.onUserId(userId);
+                },
+                error -> pause("Get user ID failed", error)) {
+            @Override public Map<String, String> getHeaders() { return spotifyHeaders(); }
+        };
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private void createPlaylist(String userId) {
+        JSONObject body = new JSONObject();
+        try {
+            body.put("name", "Groover Playlist");
+            body.put("description", "Created by Groover App");
+            body.put("public", false);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST,
+                SPOTIFY_API + "users/" + userId + "/playlists", body,
+                response -> {
+                    String playlistId = response.optString("id", null);
+                    if (playlistId == null) {
+                        pause("Spotify returned no playlist ID", null);
+                        return;
+                    }
+                    job.playlistId = playlistId;
+                    persist();                                   // a resume must not create it again
+                    run();
+                },
+                error -> {
+                    if (error.networkResponse != null && error.networkResponse.statusCode == 404) {
+                        prefs().edit().remove("SPOTIFY_USER_ID").apply();   // stale cached ID
+                    }
+                    pause("Create failed", error);
+                }) {
+            @Override public Map<String, String> getHeaders() { return spotifyHeaders(); }
+        };
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** Keeps up to MAX_IN_FLIGHT chunk requests running. */
+    private void pump() {
+        if (!running) return;
+        if (stopping) {
+            if (inFlight == 0) {
+                running = false;
+                setStage(Stage.PAUSED);
+            }
+            return;
+        }
+        if (job.anyUnverified()) {                       // settle those before sending more
+            if (inFlight == 0 && !verifying) verifyChunks();
+            return;
+        }
+        if (job.allAdded()) {
+            if (inFlight == 0) run();
+            return;
+        }
+        while (inFlight < MAX_IN_FLIGHT) {
+            int chunk = job.nextChunk(chunkInFlight);
+            if (chunk < 0) break;
+            sendChunk(chunk);
+        }
+    }
+
+    private void sendChunk(int chunk) {
+        byte[] body;
+        try {
+            body = new JSONObject().put("uris", new JSONArray(job.chunk(chunk))).toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        int requestGeneration = generation;
+        chunkInFlight[chunk] = true;
+        inFlight++;
+
+        StringRequest request = new StringRequest(Request.Method.POST,
+                SPOTIFY_API + "playlists/" + job.playlistId + "/tracks",
+                response -> {
+                    if (requestGeneration != generation) return;
+                    inFlight--;
+                    chunkInFlight[chunk] = false;
+                    job.chunkDone[chunk] = true;
+                    persist();
+                    notifyListener();
+                    pump();
+                },
+                error -> {
+                    if (requestGeneration != generation) return;
+                    inFlight--;
+                    chunkInFlight[chunk] = false;
+                    attempts[chunk]++;
+                    int status = error.networkResponse != null ? error.networkResponse.statusCode : 0;
+                    boolean ambiguous = status == 0 || status >= 500;   // Spotify may have added it
+                    if (ambiguous) {
+                        job.unverified[chunk] = true;
+                        persist();
+                    }
+                    if (ambiguous && attempts[chunk] < MAX_ATTEMPTS) {
+                        Log.w("PLAYLIST_EXPORT", "Chunk " + chunk + " failed, checking the playlist before a retry", error);
+                        pump();
+                        return;
+                    }
+                    if (status == 429 && attempts[chunk] < MAX_ATTEMPTS) {
+                        long delay = retryDelay(error, attempts[chunk]);
+                        Log.w("PLAYLIST_EXPORT", "Chunk " + chunk + " failed, retrying in " + delay + " ms", error);
+                        chunkInFlight[chunk] = true;             // reserved until the retry runs
+                        AppExecutors.mainDelayed(() -> {
+                            if (requestGeneration != generation || !running) return;
+                            chunkInFlight[chunk] = false;
+                            if (!stopping && !job.anyUnverified()) sendChunk(chunk);
+                            else pump();
+                        }, delay);
+                        return;
+                    }
+                    Log.e("PLAYLIST_EXPORT", "Chunk " + chunk + " failed, pausing export", error);
+                    stopping = true;
+                    pump();
+                }) {
+            @Override public Map<String, String> getHeaders() { return spotifyHeaders(); }
+            @Override public String getBodyContentType() { return "application/json"; }
+            @Override public byte[] getBody() { return body; }
+        };
+        request.setRetryPolicy(new DefaultRetryPolicy(15_000, 0, 1f));   // retries handled here
+        request.setShouldCache(false);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /**
+     * Reads the playlist back once no chunk is in flight: every chunk that failed
+     * ambiguously is marked done if its tracks are there, and re-sent otherwise.
+     * If the playlist holds exactly the done chunks, one request settles it.
+     */
+    private void verifyChunks() {
+        verifying = true;
+        fetchPlaylistItems(0, new HashSet<>(), generation);
+    }
+
+    private void fetchPlaylistItems(int offset, Set<String> present, int requestGeneration) {
+        String url = SPOTIFY_API + "playlists/" + job.playlistId
+                + "/tracks?fields=total,items(track(uri))&limit=" + CHUNK_SIZE + "&offset=" + offset;
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> {
+                    if (requestGeneration != generation) return;
+                    int total = response.optInt("total", -1);
+                    if (total == job.added()) {              // none of the unsure chunks landed
+                        settleUnverified(null);
+                        return;
+                    }
+                    JSONArray items = response.optJSONArray("items");
+                    int count = items != null ? items.length() : 0;
+                    for (int i = 0; i < count; i++) {
+                        JSONObject item  = items.optJSONObject(i);
+                        JSONObject track = item != null ? item.optJSONObject("track") : null;
+                        if (track != null) present.add(track.optString("uri"));
+                    }
+                    if (count > 0 && offset + count < total) fetchPlaylistItems(offset + count, present, requestGeneration);
+                    else                                      settleUnverified(present);
+                },
+                error -> {
+                    if (requestGeneration != generation) return;
+                    verifying = false;
+                    if (++verifyAttempts >= MAX_ATTEMPTS) {
+                        Log.e("PLAYLIST_EXPORT", "Cannot read the playlist back, pausing export", error);
+                        stopping = true;
+                        pump();
+                        return;
+                    }
+                    long delay = retryDelay(error, verifyAttempts);
+                    Log.w("PLAYLIST_EXPORT", "Playlist read-back failed, retrying in " + delay + " ms", error);
+                    AppExecutors.mainDelayed(() -> {
+                        if (requestGeneration == generation && running) pump();
+                    }, delay);
+                }) {
+            @Override public Map<String, String> getHeaders() { return spotifyHeaders(); }
+        };
+        request.setRetryPolicy(new DefaultRetryPolicy(15_000, 0, 1f));
+        request.setShouldCache(false);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** present: the playlist’s URIs, or null when none of the unsure chunks landed. */
+    private void settleUnverified(Set<String> present) {
+        for (int i = 0; i < job.unverified.length; i++) {
+            if (!job.unverified[i]) continue;
+            job.unverified[i] = false;
+            if (present != null && present.containsAll(job.chunk(i))) job.chunkDone[i] = true;
+        }
+        verifying = false;
+        verifyAttempts = 0;
+        persist();
+        notifyListener();
+        pump();
+    }
+
+    /** Stores the playlist ID in the Groover DB. */
+    private void recordPlaylist() {
+        String url = GROOVER_API + "add_user_playlist/" + job.owner + "/" + job.playlistId;
+        StringRequest request = new StringRequest(Request.Method.GET, url,
+                response -> {
+                    job.recorded = true;
+                    persist();
+                    clearSwipes();
+                },
+                error -> pause("Failed to save playlist", error));
+        request.setShouldCache(false);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** Marks the swipes up to the job’s boundary as used, then finishes the job. */
+    private void clearSwipes() {
+        String url = GROOVER_API + "clear_user_swipes/" + job.owner + "/" + job.playlistId + "/" + job.lastSwipeId;
+        StringRequest request = new StringRequest(Request.Method.GET, url,
+                response -> {
+                    String playlistId = job.playlistId;
+                    List<String> uris = job.uris;
+                    job = null;
+                    running = false;
+                    AppExecutors.io().execute(this::deleteFromDisk);
+                    setStage(Stage.IDLE);
+                    if (listener != null) listener.onFinished(playlistId, uris);
+                },
+                error -> pause("Failed to clear swipes", error));
+        request.setShouldCache(false);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private void pause(String message, VolleyError error) {
+        Log.e("PLAYLIST_EXPORT", message + ", export paused", error);
+        running = false;
+        setStage(Stage.PAUSED);
+    }
+
+    private static long retryDelay(VolleyError error, int attempt) {
+        long delay = RETRY_BASE_MS << attempt;
+        if (error.networkResponse != null && error.networkResponse.statusCode == 429
+                && error.networkResponse.headers != null) {
+            String retryAfter = error.networkResponse.headers.get("Retry-After");
+            try {
+                if (retryAfter != null) delay = Math.max(delay, Long.parseLong(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException ignored) {
+                // keep the exponential delay
+            }
+        }
+        return delay;
+    }
+
+    private SharedPreferences prefs() {
+        return appContext.getSharedPreferences("grooverPrefs", Context.MODE_PRIVATE);
+    }
+
+    private Map<String, String> spotifyHeaders() {
+        Map<String, String> h = new HashMap<>();
+        h.put("Authorization", "Bearer " + prefs().getString("SPOTIFY_TOKEN", ""));
+        return h;
+    }
+
+    private void setStage(Stage s) {
+        stage = s;
+        notifyListener();
+    }
+
+    private void notifyListener() {
+        if (listener == null) return;
+        if (job == null) listener.onProgress(Stage.IDLE, 0, 0);
+        else             listener.onProgress(stage, job.added(), job.uris.size());
+    }
+
+    // --- Checkpoint ---
+
+    /** Snapshots the job on the UI thread and writes it on the I/O pool. */
+    private void persist() {
+        if (job == null) return;
+        byte[] bytes;
+        try {
+            bytes = job.toJson().toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            Log.e("PLAYLIST_EXPORT", "Cannot encode checkpoint", e);
+            return;
+        }
+        AppExecutors.io().execute(() -> writeToDisk(bytes));
+    }
+
+    private synchronized void writeToDisk(byte[] bytes) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(bytes);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.e("PLAYLIST_EXPORT", "Checkpoint failed", e);
+            if (out != null) file.failWrite(out);
+        }
+    }
+
+    private synchronized void deleteFromDisk() {
+        file.delete();
+    }
+
+    private synchronized Job readFromDisk() {
+        try {
+            return Job.fromJson(new JSONObject(new String(file.readFully(), StandardCharsets.UTF_8)));
+        } catch (FileNotFoundException e) {
+            // no unfinished export
+        } catch (IOException | JSONException | ArrayIndexOutOfBoundsException e) {
+            Log.e("PLAYLIST_EXPORT", "Checkpoint unreadable, dropping it", e);
+        }
+        return null;
+    }
+}
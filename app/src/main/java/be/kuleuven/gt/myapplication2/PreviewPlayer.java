@@ -0,0 +1,300 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * The one MediaPlayer behind every “Play Preview” button.
+ * • 30-second previews are downloaded into a bounded disk cache
+ *   (cacheDir/previews, LRU-trimmed); preview URLs are immutable, so a cached
+ *   file never needs revalidation
+ * • prebuffer() is told which previews sit on the top and next card; both are
+ *   downloaded in the background and the top one is already prepared in the
+ *   idle player, so play() on it starts immediately
+ * • only one preview plays at a time; starting another stops the first and
+ *   notifies its Callback
+ * • the player is reset between tracks and released in release(), so at most
+ *   one native player exists per process
+ * All public methods must be called on the UI thread.
+ */
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class PreviewPlayer {
+
+    private static final long DISK_BUDGET_BYTES = 12L * 1024 * 1024;
+    private static final int  MAX_PREVIEW_BYTES = 2 * 1024 * 1024;   // 30 s MP3 is ~0.4 MB
+    private static final int  COPY_BUFFER       = 16 * 1024;
+
+    /** Playback state of one play() call, delivered on the UI thread. */
+    public interface Callback {
+        void onLoading();
+        void onStarted();
+        void onStopped();
+        void onError();
+    }
+
+    private static volatile PreviewPlayer instance;
+
+    private final File diskDir;
+    private final ExecutorService downloader = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "groover-preview"));   // network-bound, kept off the shared io() pool
+
+    // --- UI-thread state ---
+    private MediaPlayer player;
+    private String loadedUrl;          // data source currently set on the player
+    private boolean prepared = false;
+    private boolean playWhenReady = false;
+    private Callback callback;         // owner of the current playback, if any
+    private List<String> wanted = new ArrayList<>();   // [top, next] previews
+    private final Set<String> downloading = new HashSet<>();
+    private int instantStarts = 0, preparedStarts = 0, downloads = 0;
+
+    public static PreviewPlayer get(Context context) {
+        if (instance == null) {
+            synchronized (PreviewPlayer.class) {
+                if (instance == null) instance = new PreviewPlayer(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private PreviewPlayer(Context appContext) {
+        this.diskDir = new File(appContext.getCacheDir(), "previews");
+        if (!diskDir.exists() && !diskDir.mkdirs()) Log.w("PREVIEW", "Cannot create " + diskDir);
+        DebugStats.register("previews", () ->
+                "instant starts=" + instantStarts + ", prepared on tap=" + preparedStarts
+                        + ", downloads=" + downloads + ", player=" + (player != null ? "alive" : "released"));
+    }
+
+    /** Downloads these previews (top card first) and primes the player with the first one. */
+    public void prebuffer(List<String> previewUrls) {
+        wanted = new ArrayList<>();
+        for (String url : previewUrls) if (url != null && !url.isEmpty()) wanted.add(url);
+        for (String url : wanted) {
+            if (!cacheFile(url).exists()) download(url);
+        }
+        primeTop();
+    }
+
+    /** Starts the preview; the previous one (if any) is stopped and its callback told so. */
+    public void play(String url, Callback cb) {
+        if (callback != null && callback != cb) callback.onStopped();
+        callback = cb;
+
+        if (url.equals(loadedUrl) && prepared) {
+            instantStarts++;
+            player.start();
+            cb.onStarted();
+            return;
+        }
+        cb.onLoading();
+        if (url.equals(loadedUrl)) playWhenReady = true;   // already preparing
+        else load(url, true);
+    }
+
+    /** Stops playback but keeps the track prepared, so it can start again at once. */
+    public void stop() {
+        playWhenReady = false;
+        if (player != null && prepared && player.isPlaying()) {
+            player.pause();
+            player.seekTo(0);
+        }
+        notifyStopped();
+    }
+
+    public boolean isPlaying(String url) {
+        return url != null && url.equals(loadedUrl) && callback != null && prepared && player.isPlaying();
+    }
+
+    public boolean isLoading(String url) {
+        return url != null && url.equals(loadedUrl) && callback != null && !prepared;
+    }
+
+    /** Frees the native player; the next prebuffer()/play() creates a new one. */
+    public void release() {
+        notifyStopped();
+        if (player != null) {
+            player.release();
+            player = null;
+        }
+        loadedUrl     = null;
+        prepared      = false;
+        playWhenReady = false;
+    }
+
+    // --- Player ---
+
+    /** Prepares the idle player with the top card’s cached preview. */
+    private void primeTop() {
+        if (wanted.isEmpty() || callback != null) return;
+        String top = wanted.get(0);
+        if (!top.equals(loadedUrl) && cacheFile(top).exists()) load(top, false);
+    }
+
+    private void load(String url, boolean play) {
+        if (player == null) player = createPlayer();
+        player.reset();
+        loadedUrl     = url;
+        prepared      = false;
+        playWhenReady = play;
+
+        File cached = cacheFile(url);
+        try {
+            if (cached.exists()) {
+                //noinspection ResultOfMethodCallIgnored
+                cached.setLastModified(System.currentTimeMillis());   // LRU order for trimming
+                player.setDataSource(cached.getPath());
+            } else {
+                player.setDataSource(url);                            // stream now, cache for next time
+                download(url);
+            }
+            player.prepareAsync();
+        } catch (IOException e) {
+            Log.e("PREVIEW", "Cannot open preview " + url, e);
+            fail();
+        }
+    }
+
+    private MediaPlayer createPlayer() {
+        MediaPlayer mp = new MediaPlayer();
+        mp.setAudioAttributes(new AudioAttributes.Builder()
+                .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .build());
+        mp.setOnPreparedListener(p -> {
+            prepared = true;
+            if (!playWhenReady || callback == null) return;
+            preparedStarts++;
+            p.start();
+            callback.onStarted();
+        });
+        mp.setOnCompletionListener(p -> {
+            p.seekTo(0);
+            notifyStopped();
+        });
+        mp.setOnErrorListener((p, what, extra) -> {
+            Log.w("PREVIEW", "Player error " + what + "/" + extra + " for " + loadedUrl);
+            fail();
+            return true;
+        });
+        return mp;
+    }
+
+    private void fail() {
+        if (player != null) player.reset();
+        loadedUrl     = null;
+        prepared      = false;
+        playWhenReady = false;
+        if (callback != null) {
+            Callback cb = callback;
+            callback = null;
+            cb.onError();
+        }
+    }
+
+    private void notifyStopped() {
+        if (callback == null) return;
+        Callback cb = callback;
+        callback = null;
+        cb.onStopped();
+    }
+
+    // --- Disk cache ---
+
+    private void download(String url) {
+        if (!downloading.add(url)) return;
+        downloader.execute(() -> {
+            boolean ok = fetchToDisk(url);
+            AppExecutors.main().execute(() -> {
+                downloading.remove(url);
+                if (!ok) return;
+                downloads++;
+                primeTop();
+            });
+        });
+    }
+
+    /** Worker thread: streams the preview to a temp file and renames it into place. */
+    private boolean fetchToDisk(String url) {
+        File target = cacheFile(url);
+        if (target.exists()) return true;
+        File tmp = new File(diskDir, target.getName() + ".tmp");
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) new URL(url).openConnection();
+            conn.setConnectTimeout(15_000);
+            conn.setReadTimeout(30_000);
+            if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) throw new IOException("HTTP " + conn.getResponseCode());
+
+            byte[] buffer = new byte[COPY_BUFFER];
+            long total = 0;
+            try (InputStream in = conn.getInputStream(); OutputStream out = new FileOutputStream(tmp)) {
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    total += n;
+                    if (total > MAX_PREVIEW_BYTES) throw new IOException("Preview too large");
+                    out.write(buffer, 0, n);
+                }
+            }
+            if (!tmp.renameTo(target)) throw new IOException("Rename failed for " + target);
+            trimDisk();
+            return true;
+        } catch (IOException e) {
+            Log.w("PREVIEW", "Could not cache preview " + url, e);
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return false;
+        } finally {
+            if (conn != null) conn.disconnect();
+        }
+    }
+
+    private File cacheFile(String url) {
+        return new File(diskDir, sha1(url) + ".mp3");
+    }
+
+    /** Deletes least recently used previews until the cache fits its budget. */
+    private void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= DISK_BUDGET_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= DISK_BUDGET_BYTES) break;
+            total -= f.length();
+            //noinspection ResultOfMethodCallIgnored
+            f.delete();
+        }
+    }
+
+    private static String sha1(String s) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
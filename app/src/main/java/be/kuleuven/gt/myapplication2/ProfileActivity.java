@@ -2,18 +2,14 @@ package be.kuleuven.gt.myapplication2;
 
 /**
  * User-profile screen.
- * • Shows username, bio, and profile picture
+ * • Shows username, bio, and profile picture (one ETag-revalidated get_profile call)
  * • Lets the user upload a photo, edit bio, view friends, and log out
  * • Bottom-navigation for quick app navigation
  */
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.MediaStore;
-import android.util.Base64;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.EditText;
@@ -26,15 +22,9 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.android.volley.Request;
-import com.android.volley.toolbox.JsonArrayRequest;
 import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import org.json.JSONException;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -49,6 +39,7 @@ public class ProfileActivity extends AppCompatActivity {
     // --- State ---
     private Uri   selectedImageUri;
     private String currentUsername;
+    private String shownBio;                      // last bio fetchProfile put into editBio
 
     /** Image picker launcher (returns a Uri). */
     private final ActivityResultLauncher<String> imagePicker =
@@ -57,7 +48,7 @@ public class ProfileActivity extends AppCompatActivity {
                     uri -> {
                         if (uri != null) {
                             selectedImageUri = uri;
-                            uploadImageAsBase64(uri);
+                            ProfilePhotoUploader.get(this).upload(uri, currentUsername);
                         }
                     });
 
@@ -93,9 +84,13 @@ public class ProfileActivity extends AppCompatActivity {
         btnFriends.setOnClickListener(v -> startActivity(new Intent(this, FriendsListActivity.class)));
         btnSaveBio.setOnClickListener(v -> saveBioToServer(editBio.getText().toString().trim()));
 
+        // Photo uploads run in the background and resume after interruptions
+        ProfilePhotoUploader uploader = ProfilePhotoUploader.get(this);
+        uploader.setListener(uploadListener);
+        uploader.resumePending();
+
         // Initial data
-        loadProfilePhoto();
-        fetchBioFromServer();
+        fetchProfile();
 
         // Bottom-navigation (kept as original if-chain)
         BottomNavigationView bottomNav = findViewById(R.id.bottom_nav);
@@ -121,26 +116,28 @@ public class ProfileActivity extends AppCompatActivity {
         });
     }
 
-    /** Downloads the user’s bio text from the backend. */
-    private void fetchBioFromServer() {
-        String url = "https://studev.groept.be/api/a24pt103/get_bio/" + currentUsername;
-
-        JsonArrayRequest req = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    try {
-                        if (response.length() > 0) {
-                            String bio = response.getJSONObject(0).getString("bio");
-                            editBio.setText(bio);
-                        }
-                    } catch (JSONException e) { e.printStackTrace(); }
-                },
-                error -> {
-                    Toast.makeText(this, "Couldn't load bio", Toast.LENGTH_SHORT).show();
-                    Log.e("BIO-LOAD", "Volley error", error);
-                });
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ProfilePhotoUploader.get(this).setListener(null);
+    }
 
-        Volley.newRequestQueue(this).add(req);
+    /** Loads bio and picture hashes in one conditional request, then shows the photo. */
+    private void fetchProfile() {
+        UserProfile.fetch(this, currentUsername, new UserProfile.Callback() {
+            @Override public void onProfile(UserProfile profile) {
+                // A revalidated profile can follow the cached one; keep whatever was typed meanwhile
+                if (shownBio == null || shownBio.equals(editBio.getText().toString())) {
+                    editBio.setText(profile.bio);
+                    shownBio = profile.bio;
+                }
+                loadProfilePhoto();
+            }
+            @Override public void onError() {
+                Toast.makeText(ProfileActivity.this, "Couldn't load bio", Toast.LENGTH_SHORT).show();
+                loadProfilePhoto();
+            }
+        });
     }
 
     /** Saves the edited bio back to the backend. */
@@ -149,7 +146,10 @@ public class ProfileActivity extends AppCompatActivity {
 
         StringRequest req = new StringRequest(
                 Request.Method.POST, url,
-                response -> Toast.makeText(this, "Bio saved!", Toast.LENGTH_SHORT).show(),
+                response -> {
+                    Toast.makeText(this, "Bio saved!", Toast.LENGTH_SHORT).show();
+                    UserProfile.invalidate(this, currentUsername);
+                },
                 error -> {
                     Toast.makeText(this, "Save failed", Toast.LENGTH_SHORT).show();
                     Log.e("BIO-SAVE", "Volley error", error);
@@ -163,72 +163,29 @@ public class ProfileActivity extends AppCompatActivity {
             }
         };
 
-        Volley.newRequestQueue(this).add(req);
+        GrooverNetwork.get(this).add(req);
     }
 
-    /** Compresses and encodes the selected image, then uploads it. */
-    private void uploadImageAsBase64(Uri uri) {
-        try {
-            Bitmap bitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), uri);
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 80, out);
-            String base64Image = Base64.encodeToString(out.toByteArray(), Base64.NO_WRAP);
-
-            sendImageToServer(base64Image);
-
-        } catch (IOException e) {
-            e.printStackTrace();
-            Toast.makeText(this, "Failed to process image", Toast.LENGTH_SHORT).show();
+    /** Upload progress / result shown on the upload button. */
+    private final ProfilePhotoUploader.Listener uploadListener = new ProfilePhotoUploader.Listener() {
+        @Override public void onProgress(long sent, long total) {
+            btnUploadPhoto.setText("Uploading " + (total == 0 ? 0 : sent * 100 / total) + "%");
         }
-    }
-
-    /** Sends the Base64-encoded profile image to the backend. */
-    private void sendImageToServer(String base64Image) {
-        String url = "https://studev.groept.be/api/a24pt103/upload_profile_image/";
-
-        StringRequest req = new StringRequest(
-                Request.Method.POST, url,
-                resp -> {
-                    Log.d("UPLOAD_RESPONSE", "Server: " + resp);
-                    Toast.makeText(this, "Profile photo uploaded!", Toast.LENGTH_SHORT).show();
-                    profileImage.setImageURI(selectedImageUri);
-                },
-                err -> {
-                    Log.e("UPLOAD_FAIL", "Volley error", err);
-                    Toast.makeText(this, "Upload failed", Toast.LENGTH_SHORT).show();
-                }) {
-            @Override protected Map<String,String> getParams() {
-                Map<String,String> p = new HashMap<>();
-                p.put("username",  currentUsername);
-                p.put("imagedata", base64Image);
-                return p;
-            }
-        };
-
-        Volley.newRequestQueue(this).add(req);
-    }
+        @Override public void onComplete() {
+            btnUploadPhoto.setText("Change Photo");
+            Toast.makeText(ProfileActivity.this, "Profile photo uploaded!", Toast.LENGTH_SHORT).show();
+            ProfileImageLoader.get(ProfileActivity.this).invalidate(currentUsername);
+            UserProfile.invalidate(ProfileActivity.this, currentUsername);
+            loadProfilePhoto();
+        }
+        @Override public void onFailed() {
+            btnUploadPhoto.setText("Change Photo");
+            Toast.makeText(ProfileActivity.this, "Upload failed", Toast.LENGTH_SHORT).show();
+        }
+    };
 
-    /** Downloads and displays the stored profile photo (if any). */
+    /** Displays the stored profile photo (cached, decoded and downsampled off the UI thread). */
     private void loadProfilePhoto() {
-        String url = "https://studev.groept.be/api/a24pt103/get_profile_image/" + currentUsername;
-
-        JsonArrayRequest req = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                resp -> {
-                    try {
-                        if (resp.length() > 0) {
-                            String base64 = resp.getJSONObject(0).getString("image_data");
-                            if (!base64.isEmpty()) {
-                                byte[] bytes = Base64.decode(base64, Base64.DEFAULT);
-                                profileImage.setImageBitmap(
-                                        BitmapFactory.decodeByteArray(bytes, 0, bytes.length));
-                            }
-                        }
-                    } catch (JSONException e) { e.printStackTrace(); }
-                },
-                err -> Log.e("LOAD_IMAGE", "Failed", err));
-
-        Volley.newRequestQueue(this).add(req);
+        ProfileImageLoader.get(this).load(currentUsername, profileImage);
     }
 }
@@ -0,0 +1,308 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Loads profile pictures into ImageViews without touching the UI thread.
+ * • the backend keeps thumb / medium / full renditions at immutable
+ *   content-hash URLs; the rendition is picked from the target view size, and a
+ *   rendition up to RENDITION_SLACK smaller than the view still counts as a fit
+ * • a small metadata call (get_profile_image_meta) maps a user to the current
+ *   hashes; it is the only thing ever revalidated, and only after META_TTL_MS
+ *   (profile screens pass fresh hashes from get_profile via remember())
+ * • rendition JPEGs are decoded on the I/O pool, downsampled (inSampleSize) to
+ *   the view size and kept as RGB_565
+ * • memory tier – LruCache of ready Bitmaps keyed by hash + view size, in bytes
+ * • disk tier   – the immutable JPEG bytes per hash (tens of KB, not megabytes of
+ *   pixels), kept until the LRU budget evicts them; a disk hit costs a decode,
+ *   never a download
+ * load()/invalidate() must be called on the UI thread.
+ */
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public final class ProfileImageLoader {
+
+    private static final String META_URL = "https://studev.groept.be/api/a24pt103/get_profile_image_meta/";
+    private static final String BLOB_URL = "https://studev.groept.be/api/a24pt103/profile_image_blob/";
+
+    /** Server renditions, smallest first, with their longest edge in px. */
+    private static final String[] RENDITIONS     = { "thumb", "medium", "full" };
+    private static final int[]    RENDITION_EDGE = { 96, 320, 1080 };
+
+    private static final float RENDITION_SLACK  = 1.5f;  // 320px medium still serves a 360px view
+    private static final int  DEFAULT_SIZE_PX   = 360;
+    private static final long DISK_BUDGET_BYTES = 4L * 1024 * 1024;
+    private static final long META_TTL_MS       = TimeUnit.DAYS.toMillis(1);
+
+    private static volatile ProfileImageLoader instance;
+
+    private final Context appContext;
+    private final File diskDir;
+    private final SharedPreferences index;   // username → "thumb,medium,full@fetchedAt"
+    private final LruCache<String, Bitmap> memory;
+    private int memoryHits = 0, diskHits = 0, downloads = 0, metaCalls = 0;
+
+    public static ProfileImageLoader get(Context context) {
+        if (instance == null) {
+            synchronized (ProfileImageLoader.class) {
+                if (instance == null) instance = new ProfileImageLoader(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private ProfileImageLoader(Context appContext) {
+        this.appContext = appContext;
+        this.diskDir    = new File(appContext.getCacheDir(), "profile_images");
+        if (!diskDir.exists() && !diskDir.mkdirs()) Log.w("PROFILE_IMAGE", "Cannot create " + diskDir);
+        this.index      = appContext.getSharedPreferences("profileImageIndex", Context.MODE_PRIVATE);
+
+        int budget = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, 16L * 1024 * 1024);
+        this.memory = new LruCache<String, Bitmap>(budget) {
+            @Override protected int sizeOf(String key, Bitmap value) { return value.getByteCount(); }
+        };
+        DebugStats.register("profile images", () ->
+                "memory=" + memory.size() / 1024 + "KB, memory hits=" + memoryHits + ", disk hits=" + diskHits
+                        + ", downloads=" + downloads + ", meta calls=" + metaCalls);
+    }
+
+    /** Shows the user’s picture in target; keeps the current drawable if there is none. */
+    public void load(String username, ImageView target) {
+        target.setTag(username);   // guards against a late delivery for another user
+        WeakReference<ImageView> ref = new WeakReference<>(target);
+        int size = targetSize(target);
+        int rendition = renditionFor(size);
+
+        String hash = knownHash(username, rendition);
+        if (hash == null) {
+            fetchMeta(username, rendition, size, ref);
+            return;
+        }
+        show(username, hash, size, ref);
+        if (metaIsStale(username)) fetchMeta(username, rendition, size, ref);
+    }
+
+    /** Records rendition hashes obtained elsewhere (get_profile), so load() needs no meta call. */
+    public void remember(String username, String thumb, String medium, String full) {
+        if (full == null || full.isEmpty()) return;
+        index.edit().putString(username, thumb + "," + medium + "," + full + "@" + System.currentTimeMillis()).apply();
+    }
+
+    /** Forgets the user’s rendition hashes (e.g. after uploading a new picture). */
+    public void invalidate(String username) {
+        index.edit().remove(username).apply();
+    }
+
+    /** Smallest rendition whose longest edge covers the target size, within RENDITION_SLACK. */
+    static int renditionFor(int sizePx) {
+        for (int i = 0; i < RENDITIONS.length; i++) if (RENDITION_EDGE[i] * RENDITION_SLACK >= sizePx) return i;
+        return RENDITIONS.length - 1;
+    }
+
+    // --- Tiers: memory → disk → network ---
+
+    /** Cache key: one decode per rendition and view size. */
+    private static String key(String hash, int size) {
+        return hash + "_" + size;
+    }
+
+    private void show(String username, String hash, int size, WeakReference<ImageView> ref) {
+        String key = key(hash, size);
+        Bitmap cached = memory.get(key);
+        if (cached != null) {
+            memoryHits++;
+            deliver(username, cached, ref);
+            return;
+        }
+        AppExecutors.io().execute(() -> {
+            byte[] jpeg = readDisk(hash);
+            Bitmap fromDisk = jpeg != null ? decode(jpeg, size) : null;
+            if (fromDisk != null) {
+                diskHits++;
+                memory.put(key, fromDisk);
+                AppExecutors.main().execute(() -> deliver(username, fromDisk, ref));
+            } else {
+                AppExecutors.main().execute(() -> fetchBlob(username, hash, size, ref));
+            }
+        });
+    }
+
+    /** Downloads the immutable rendition, stores its bytes and decodes them off the UI thread. */
+    private void fetchBlob(String username, String hash, int size, WeakReference<ImageView> ref) {
+        downloads++;
+        BlobRequest request = new BlobRequest(BLOB_URL + hash,
+                jpeg -> AppExecutors.io().execute(() -> {
+                    writeDisk(hash, jpeg);
+                    Bitmap bitmap = decode(jpeg, size);
+                    if (bitmap == null) {
+                        Log.e("PROFILE_IMAGE", "Undecodable rendition " + hash);
+                        return;
+                    }
+                    memory.put(key(hash, size), bitmap);
+                    AppExecutors.main().execute(() -> deliver(username, bitmap, ref));
+                }),
+                error -> Log.e("PROFILE_IMAGE", "Failed to fetch rendition " + hash, error));
+        request.setShouldCache(false);                                   // the disk tier is the cache
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** Decodes a JPEG downsampled to the view size; null if the bytes are not an image. */
+    private static Bitmap decode(byte[] jpeg, int size) {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, opts);
+        if (opts.outWidth <= 0 || opts.outHeight <= 0) return null;
+        opts.inJustDecodeBounds = false;
+        opts.inSampleSize       = sampleSize(opts.outWidth, opts.outHeight, size);
+        opts.inPreferredConfig  = Bitmap.Config.RGB_565;
+        return BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, opts);
+    }
+
+    /** One small call; only shows a new picture if the hash actually changed. */
+    private void fetchMeta(String username, int rendition, int size, WeakReference<ImageView> ref) {
+        metaCalls++;
+        String before = knownHash(username, rendition);
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, META_URL + username, null,
+                response -> {
+                    if (!response.has("full")) return;                  // user has no picture
+                    String hashes = response.optString("thumb") + "," + response.optString("medium")
+                            + "," + response.optString("full");
+                    index.edit().putString(username, hashes + "@" + System.currentTimeMillis()).apply();
+
+                    String now = knownHash(username, rendition);
+                    if (now != null && !now.equals(before)) show(username, now, size, ref);
+                },
+                error -> Log.e("PROFILE_IMAGE", "Failed to fetch image metadata for " + username, error));
+        request.setShouldCache(false);                                   // freshness is decided here
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** Largest power of two that keeps both sides at or above the target size. */
+    static int sampleSize(int width, int height, int target) {
+        int sample = 1;
+        while (width / (sample * 2) >= target && height / (sample * 2) >= target) sample *= 2;
+        return sample;
+    }
+
+    private static void deliver(String username, Bitmap bitmap, WeakReference<ImageView> ref) {
+        ImageView view = ref.get();
+        if (view != null && username.equals(view.getTag())) view.setImageBitmap(bitmap);
+    }
+
+    private static int targetSize(ImageView view) {
+        int w = view.getLayoutParams() != null ? view.getLayoutParams().width : 0;
+        int h = view.getLayoutParams() != null ? view.getLayoutParams().height : 0;
+        int size = Math.max(w, h);                          // fixed dp sizes resolve to px here
+        return size > 0 ? size : DEFAULT_SIZE_PX;
+    }
+
+    // --- Index / disk tier ---
+
+    private String knownHash(String username, int rendition) {
+        String entry = index.getString(username, null);
+        if (entry == null) return null;
+        String[] hashes = entry.substring(0, entry.indexOf('@')).split(",", -1);
+        return rendition < hashes.length && !hashes[rendition].isEmpty() ? hashes[rendition] : null;
+    }
+
+    private boolean metaIsStale(String username) {
+        String entry = index.getString(username, null);
+        long fetchedAt = entry == null ? 0 : Long.parseLong(entry.substring(entry.indexOf('@') + 1));
+        return System.currentTimeMillis() - fetchedAt > META_TTL_MS;
+    }
+
+    private File diskFile(String hash) {
+        return new File(diskDir, hash + ".jpg");
+    }
+
+    private byte[] readDisk(String hash) {
+        File f = diskFile(hash);
+        if (!f.exists()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            byte[] jpeg = new byte[(int) f.length()];
+            in.readFully(jpeg);
+            //noinspection ResultOfMethodCallIgnored
+            f.setLastModified(System.currentTimeMillis());   // LRU order for trimming
+            return jpeg;
+        } catch (IOException e) {
+            Log.w("PROFILE_IMAGE", "Dropping unreadable " + f.getName(), e);
+            //noinspection ResultOfMethodCallIgnored
+            f.delete();
+            return null;
+        }
+    }
+
+    private void writeDisk(String hash, byte[] jpeg) {
+        File f = diskFile(hash);
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(jpeg);
+        } catch (IOException e) {
+            Log.w("PROFILE_IMAGE", "Could not cache " + f.getName(), e);
+        }
+        trimDisk();
+    }
+
+    /** Deletes least recently used files until the tier fits its budget. */
+    private void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            //noinspection ResultOfMethodCallIgnored
+            if (!f.getName().endsWith(".jpg")) f.delete();   // decoded pixels from older versions
+        }
+        files = diskDir.listFiles((dir, name) -> name.endsWith(".jpg"));
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= DISK_BUDGET_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= DISK_BUDGET_BYTES) break;
+            total -= f.length();
+            //noinspection ResultOfMethodCallIgnored
+            f.delete();
+        }
+    }
+
+    /** Volley request for raw rendition bytes; decoding happens in decode(). */
+    private static final class BlobRequest extends Request<byte[]> {
+
+        private final Response.Listener<byte[]> listener;
+
+        BlobRequest(String url, Response.Listener<byte[]> listener, Response.ErrorListener errorListener) {
+            super(Method.GET, url, errorListener);
+            this.listener = listener;
+        }
+
+        @Override
+        protected Response<byte[]> parseNetworkResponse(NetworkResponse response) {
+            return Response.success(response.data, HttpHeaderParser.parseCacheHeaders(response));
+        }
+
+        @Override
+        protected void deliverResponse(byte[] jpeg) {
+            listener.onResponse(jpeg);
+        }
+    }
+}
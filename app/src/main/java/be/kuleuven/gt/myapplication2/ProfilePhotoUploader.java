@@ -0,0 +1,277 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Resumable, streaming upload of a new profile photo.
+ * • the picked image is decoded downsampled (never at full resolution) and
+ *   scaled to at most MAX_EDGE_PX, then written as JPEG to a temp file
+ * • the file is sent as raw bytes in CHUNK_BYTES pieces with fixed-length
+ *   streaming, so at most one small copy buffer is in memory during upload
+ * • every chunk carries its offset; after an interruption (network loss, app
+ *   restart) the upload asks the server how much it has and continues there
+ * Progress and completion are reported on the UI thread to the attached Listener.
+ */
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public final class ProfilePhotoUploader {
+
+    private static final String BASE_URL = "https://studev.groept.be/api/a24pt103/";
+
+    private static final int  MAX_EDGE_PX   = 1080;
+    private static final int  JPEG_QUALITY  = 85;
+    private static final int  CHUNK_BYTES   = 128 * 1024;
+    private static final int  COPY_BUFFER   = 16 * 1024;
+    private static final int  MAX_ATTEMPTS  = 5;
+    private static final long BACKOFF_MS    = 2_000;
+
+    /** UI callbacks for the running upload. */
+    public interface Listener {
+        void onProgress(long sentBytes, long totalBytes);
+        void onComplete();
+        void onFailed();
+    }
+
+    private static volatile ProfilePhotoUploader instance;
+
+    private final Context appContext;
+    private final SharedPreferences state;   // pending upload: id, username, file, total
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            r -> new Thread(r, "groover-upload"));   // long blocking I/O, kept off the shared io() pool
+    private Listener listener;
+    private boolean running = false;
+
+    public static ProfilePhotoUploader get(Context context) {
+        if (instance == null) {
+            synchronized (ProfilePhotoUploader.class) {
+                if (instance == null) instance = new ProfilePhotoUploader(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private ProfilePhotoUploader(Context appContext) {
+        this.appContext = appContext;
+        this.state      = appContext.getSharedPreferences("photoUpload", Context.MODE_PRIVATE);
+    }
+
+    /** Attaches the screen that shows progress (UI thread); pass null to detach. */
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    public boolean isRunning() { return running; }
+
+    /** Prepares the picked image and uploads it, replacing any unfinished upload. */
+    public void upload(Uri picked, String username) {
+        if (running) return;
+        running = true;
+        worker.execute(() -> {
+            try {
+                File file = prepare(picked);
+                state.edit()
+                        .putString("upload_id", UUID.randomUUID().toString())
+                        .putString("username", username)
+                        .putString("file", file.getPath())
+                        .putLong("total", file.length())
+                        .commit();
+                send();
+            } catch (IOException e) {
+                Log.e("PHOTO_UPLOAD", "Could not prepare image", e);
+                finish(false);
+            }
+        });
+    }
+
+    /** Continues an upload that was interrupted earlier (e.g. by a restart), if any. */
+    public void resumePending() {
+        if (running || state.getString("upload_id", null) == null) return;
+        running = true;
+        worker.execute(this::send);
+    }
+
+    // --- Worker thread ---
+
+    /** Downsampled decode + exact scale to MAX_EDGE_PX, compressed to a temp JPEG. */
+    private File prepare(Uri picked) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = appContext.getContentResolver().openInputStream(picked)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) throw new IOException("Not an image: " + picked);
+
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = ProfileImageLoader.sampleSize(bounds.outWidth, bounds.outHeight, MAX_EDGE_PX);
+        Bitmap bitmap;
+        try (InputStream in = appContext.getContentResolver().openInputStream(picked)) {
+            bitmap = BitmapFactory.decodeStream(in, null, opts);
+        }
+        if (bitmap == null) throw new IOException("Decode failed: " + picked);
+
+        float scale = Math.min(1f, (float) MAX_EDGE_PX / Math.max(bitmap.getWidth(), bitmap.getHeight()));
+        if (scale < 1f) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                    Math.round(bitmap.getWidth() * scale), Math.round(bitmap.getHeight() * scale), true);
+            bitmap.recycle();
+            bitmap = scaled;
+        }
+
+        File file = new File(appContext.getCacheDir(), "profile_upload.jpg");
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } finally {
+            bitmap.recycle();
+        }
+        Log.d("PHOTO_UPLOAD", "Prepared " + file.length() / 1024 + " KB upload");
+        return file;
+    }
+
+    /** Streams the remaining chunks, retrying with backoff; resumes from the server’s offset. */
+    private void send() {
+        String uploadId = state.getString("upload_id", null);
+        String username = state.getString("username", null);
+        File file       = new File(state.getString("file", ""));
+        long total      = state.getLong("total", 0);
+        if (uploadId == null || username == null || !file.exists()) {
+            clearState();
+            finish(false);
+            return;
+        }
+
+        int attempt = 0;
+        while (true) {
+            try {
+                long offset = serverOffset(uploadId);
+                while (offset < total) {
+                    long next = sendChunk(uploadId, username, file, offset, total);
+                    if (next <= offset) throw new IOException("Server did not accept chunk at " + offset);
+                    offset = next;
+                    attempt = 0;                                      // progress resets the backoff
+                }
+                clearState();
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                finish(true);
+                return;
+            } catch (IOException e) {
+                if (++attempt >= MAX_ATTEMPTS) {
+                    Log.w("PHOTO_UPLOAD", "Giving up for now; will resume later", e);
+                    finish(false);                                    // state kept for resumePending()
+                    return;
+                }
+                Log.w("PHOTO_UPLOAD", "Chunk failed, retry " + attempt, e);
+                try {
+                    Thread.sleep(BACKOFF_MS << (attempt - 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    finish(false);
+                    return;
+                }
+            }
+        }
+    }
+
+    /** How many bytes of this upload the server already stored. */
+    private long serverOffset(String uploadId) throws IOException {
+        HttpURLConnection conn = open(BASE_URL + "upload_profile_image_status/" + uploadId);
+        try {
+            return readJson(conn).getLong("received");
+        } catch (JSONException e) {
+            throw new IOException("Bad status response", e);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /** Sends one chunk starting at offset; returns the server’s new offset. */
+    private long sendChunk(String uploadId, String username, File file, long offset, long total) throws IOException {
+        int length = (int) Math.min(CHUNK_BYTES, total - offset);
+        String url = BASE_URL + "upload_profile_image_chunk/" + uploadId + "/"
+                + URLEncoder.encode(username, "UTF-8") + "/" + offset + "/" + total;
+
+        HttpURLConnection conn = open(url);
+        try {
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(length);                // streamed, not buffered in memory
+            conn.setRequestProperty("Content-Type", "application/octet-stream");
+
+            byte[] buffer = new byte[COPY_BUFFER];
+            try (RandomAccessFile in = new RandomAccessFile(file, "r");
+                 OutputStream out = conn.getOutputStream()) {
+                in.seek(offset);
+                int remaining = length;
+                while (remaining > 0) {
+                    int n = in.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (n < 0) throw new IOException("Upload file shrank");
+                    out.write(buffer, 0, n);
+                    remaining -= n;
+                    progress(offset + length - remaining, total);
+                }
+            }
+            return readJson(conn).getLong("received");
+        } catch (JSONException e) {
+            throw new IOException("Bad chunk response", e);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(15_000);
+        conn.setReadTimeout(30_000);
+        return conn;
+    }
+
+    /** Reads a small JSON reply; 409 (offset mismatch) still carries the server’s offset. */
+    private static JSONObject readJson(HttpURLConnection conn) throws IOException, JSONException {
+        int code = conn.getResponseCode();
+        InputStream in = code < 400 ? conn.getInputStream() : conn.getErrorStream();
+        if (in == null || (code >= 400 && code != 409)) throw new IOException("HTTP " + code);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        try (InputStream stream = in) {
+            for (int n; (n = stream.read(buf)) > 0; ) body.write(buf, 0, n);
+        }
+        return new JSONObject(body.toString("UTF-8"));
+    }
+
+    private void clearState() {
+        state.edit().clear().commit();
+    }
+
+    private void progress(long sent, long total) {
+        AppExecutors.main().execute(() -> {
+            if (listener != null) listener.onProgress(sent, total);
+        });
+    }
+
+    private void finish(boolean ok) {
+        AppExecutors.main().execute(() -> {
+            running = false;
+            if (listener == null) return;
+            if (ok) listener.onComplete();
+            else listener.onFailed();
+        });
+    }
+}
@@ -23,7 +23,6 @@ import androidx.core.view.WindowInsetsCompat;
 
 import com.android.volley.Request;
 import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
 
 import java.security.MessageDigest;
 import java.util.HashMap;
@@ -99,7 +98,7 @@ public class RegisterActivity extends AppCompatActivity {
             }
         };
 
-        Volley.newRequestQueue(this).add(checkReq);
+        GrooverNetwork.get(this).add(checkReq);
     }
 
     /** SHA-256 helper; returns a hex string. */
@@ -138,6 +137,6 @@ public class RegisterActivity extends AppCompatActivity {
             }
         };
 
-        Volley.newRequestQueue(this).add(req);
+        GrooverNetwork.get(this).add(req);
     }
 }
@@ -2,7 +2,8 @@ package be.kuleuven.gt.myapplication2;
 
 /**
  * Lets the user search for other Groover users.
- * • Displays a live-filtered list of usernames
+ * • Typeahead over usernames: instant local results, server prefix
+ *   search once typing pauses, more pages as the list is scrolled (UserSearch)
  * • If launched from ProfileActivity (“fromProfile” flag), the adapter
  *   enables friend-request actions.
  * • Includes the global bottom-navigation bar.
@@ -12,20 +13,13 @@ import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.widget.EditText;
-import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.android.volley.Request;
-import com.android.volley.toolbox.JsonArrayRequest;
-import com.android.volley.toolbox.Volley;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import org.json.JSONException;
-
-import java.util.ArrayList;
 import java.util.List;
 
 public class SearchActivity extends AppCompatActivity {
@@ -36,8 +30,7 @@ public class SearchActivity extends AppCompatActivity {
 
     // --- Data + adapter ---
     private UserSearchAdapter adapter;
-    private final List<String> allUsers      = new ArrayList<>();
-    private final List<String> filteredUsers = new ArrayList<>();
+    private UserSearch        search;
 
     private String  currentUsername;
     private boolean fromProfile;
@@ -82,54 +75,41 @@ public class SearchActivity extends AppCompatActivity {
         fromProfile     = getIntent().getBooleanExtra("fromProfile", false);
 
         // Adapter
-        adapter = new UserSearchAdapter(filteredUsers, currentUsername, fromProfile, this);
+        adapter = new UserSearchAdapter(currentUsername, fromProfile, this);
         recyclerView.setAdapter(adapter);
 
-        // Initial load
-        fetchAllUsers();
+        // Typeahead pipeline; an empty query lists users from the start of the alphabet
+        search = new UserSearch(this, currentUsername, this::showUsers);
+        search.query(searchInput.getText().toString());
 
-        // Live filtering
         searchInput.addTextChangedListener(new TextWatcher() {
             @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
             @Override public void onTextChanged(CharSequence s, int start, int before, int count) {
-                filterUsers(s.toString());
+                search.query(s.toString());
             }
             @Override public void afterTextChanged(Editable s) {}
         });
+
+        // Next server page when the list is scrolled near its end
+        LinearLayoutManager layout = (LinearLayoutManager) recyclerView.getLayoutManager();
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView rv, int dx, int dy) {
+                if (dy > 0 && layout.findLastVisibleItemPosition() >= adapter.getItemCount() - 5) {
+                    search.loadMore();
+                }
+            }
+        });
     }
 
-    /** Downloads the full user list from the backend (excluding self). */
-    private void fetchAllUsers() {
-        String url = "https://studev.groept.be/api/a24pt103/get_all_users";
-
-        JsonArrayRequest request = new JsonArrayRequest(
-                Request.Method.GET, url, null,
-                response -> {
-                    allUsers.clear();
-                    for (int i = 0; i < response.length(); i++) {
-                        try {
-                            String user = response.getJSONObject(i).getString("username");
-                            if (!user.equals(currentUsername)) allUsers.add(user);
-                        } catch (JSONException e) { e.printStackTrace(); }
-                    }
-                    filterUsers(searchInput.getText().toString());
-                },
-                error -> {
-                    error.printStackTrace();
-                    Toast.makeText(this, "Failed to load users", Toast.LENGTH_SHORT).show();
-                });
-
-        Volley.newRequestQueue(this).add(request);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        search.cancel();
     }
 
-    /** Updates “filteredUsers” based on the search keyword and refreshes the adapter. */
-    private void filterUsers(String keyword) {
-        filteredUsers.clear();
-        for (String user : allUsers) {
-            if (user.toLowerCase().contains(keyword.toLowerCase())) {
-                filteredUsers.add(user);
-            }
-        }
-        adapter.notifyDataSetChanged();
+    /** Shows the latest search results (diffed against the current rows). */
+    private void showUsers(List<String> usernames) {
+        adapter.submitList(usernames);
     }
 }
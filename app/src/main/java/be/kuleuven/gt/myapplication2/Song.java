@@ -4,6 +4,8 @@ package be.kuleuven.gt.myapplication2;
  * Simple data-class representing a Spotify track.
  * Fields include Groover’s DB id, Spotify URI, title, artist,
  * album-cover URL, and preview URL.
+ * When Spotify returned several cover sizes, coverUrlFor() picks the
+ * smallest one that still covers the requested width.
  */
 public class Song {
 
@@ -17,6 +19,10 @@ public class Song {
     private final String albumCoverUrl;
     private final String previewUrl;
 
+    // --- Album-cover variants (Spotify: typically 640 / 300 / 64 px), widest first ---
+    private String[] coverUrls   = new String[0];
+    private int[]    coverWidths = new int[0];
+
     /** Basic constructor when only metadata is known. */
     public Song(String name, String artist, String albumCoverUrl, String previewUrl) {
         this.name          = name;
@@ -44,8 +50,29 @@ public class Song {
     public String getPreviewUrl()    { return previewUrl; }
     public String getId()            { return id; }
     public String getUri()           { return uri; }
+    public String[] getCoverUrls()   { return coverUrls; }
+    public int[] getCoverWidths()    { return coverWidths; }
+
+    /** Smallest cover variant at least widthPx wide (the widest one if none is). */
+    public String coverUrlFor(int widthPx) {
+        String best = albumCoverUrl;
+        int bestWidth = Integer.MAX_VALUE;
+        for (int i = 0; i < coverUrls.length; i++) {
+            if (coverWidths[i] >= widthPx && coverWidths[i] < bestWidth) {
+                best = coverUrls[i];
+                bestWidth = coverWidths[i];
+            }
+        }
+        return best;
+    }
 
     // --- Setters (for mutable identifiers) ---
     public void setId(String id)   { this.id = id; }
     public void setUri(String uri) { this.uri = uri; }
+
+    /** Sets the available cover sizes (parallel arrays, same order as Spotify lists them). */
+    public void setCoverVariants(String[] urls, int[] widths) {
+        this.coverUrls   = urls;
+        this.coverWidths = widths;
+    }
 }
@@ -6,20 +6,22 @@ package be.kuleuven.gt.myapplication2;
  * • updateData()  – replaces the entire list
  * • addData()     – appends a batch
  * • clear()       – removes all cards
- * Media playback is handled inside the ViewHolder.
+ * List changes are diffed off the UI thread (AsyncListDiffer) and cards have
+ * stable IDs from their Spotify IDs, so appending a batch never rebinds the
+ * cards already on the stack.
+ * Preview playback goes through the shared PreviewPlayer; holders only
+ * mirror its state on their button.
  */
-import android.media.MediaPlayer;
 import android.view.LayoutInflater;
-import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Toast;
 
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
 import com.yuyakaido.android.cardstackview.CardStackView;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,28 +29,31 @@ import be.kuleuven.gt.myapplication2.databinding.ItemSongCardBinding;
 
 public class SongCardAdapter extends CardStackView.Adapter<SongCardAdapter.SongViewHolder> {
 
-    private final List<Song> songList;
+    private final AsyncListDiffer<Song> differ = new AsyncListDiffer<>(this, ItemDiffs.config(ItemDiffs.SONGS));
+    private List<Song> latest;   // last submitted list; the differ may still be computing it
 
     /** Constructs the adapter with an initial (possibly empty) list. */
     public SongCardAdapter(List<Song> songList) {
-        this.songList = new ArrayList<>(songList);
+        setHasStableIds(true);
+        updateData(songList);
     }
 
-    /** Replaces current data set and refreshes the view. */
+    /** Replaces current data set; an empty list clears the stack immediately. */
     public void updateData(List<Song> newSongs) {
-        songList.clear();
-        songList.addAll(newSongs);
-        notifyDataSetChanged();
+        latest = new ArrayList<>(newSongs);
+        differ.submitList(latest.isEmpty() ? null : latest);   // null: synchronous remove-all
     }
 
-    /** Adds a batch of songs and notifies the range inserted. */
-    public void addData(List<Song> newSongs) {
-        int start = songList.size();
-        songList.addAll(newSongs);
-        notifyItemRangeInserted(start, newSongs.size());
+    /** Appends a batch; committed runs once the cards are in the adapter (skipped if superseded). */
+    public void addData(List<Song> newSongs, Runnable committed) {
+        List<Song> next = new ArrayList<>(latest);
+        next.addAll(newSongs);
+        latest = next;
+        differ.submitList(next, committed);
     }
 
-    public List<Song> getSongList() { return songList; }
+    /** Cards currently shown, in adapter-position order. */
+    public List<Song> getSongList() { return differ.getCurrentList(); }
 
     @Override
     public SongViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
@@ -59,25 +64,32 @@ public class SongCardAdapter extends CardStackView.Adapter<SongCardAdapter.SongV
 
     @Override
     public void onBindViewHolder(SongViewHolder holder, int position) {
-        holder.bind(songList.get(position));
+        holder.bind(differ.getCurrentList().get(position));
     }
 
     @Override
-    public int getItemCount() { return songList.size(); }
+    public long getItemId(int position) {
+        return ItemDiffs.stableId(differ.getCurrentList().get(position).getId());
+    }
+
+    @Override
+    public void onViewRecycled(SongViewHolder holder) {
+        holder.unbind();
+    }
+
+    @Override
+    public int getItemCount() { return differ.getCurrentList().size(); }
 
     /** Clears all cards from the adapter. */
     public void clear() {
-        int size = songList.size();
-        songList.clear();
-        notifyItemRangeRemoved(0, size);
+        updateData(new ArrayList<>());
     }
 
     /** ViewHolder that manages UI binding and preview playback. */
     public static class SongViewHolder extends RecyclerView.ViewHolder {
 
         private final ItemSongCardBinding binding;
-        private MediaPlayer mediaPlayer;
-        private boolean isPreparingMedia = false;
+        private String boundPreviewUrl;
 
         public SongViewHolder(ItemSongCardBinding binding) {
             super(binding.getRoot());
@@ -89,90 +101,55 @@ public class SongCardAdapter extends CardStackView.Adapter<SongCardAdapter.SongV
             binding.setSong(song);      // Data-binding variables in layout
             binding.executePendingBindings();
 
-            // Load album artwork (Picasso handles caching)
-            if (song.getAlbumCoverUrl() != null && !song.getAlbumCoverUrl().isEmpty()) {
-                Picasso.get()
-                        .load(song.getAlbumCoverUrl())
-                        .placeholder(R.drawable.ic_launcher_foreground)
+            // Load album artwork at card size (usually already prefetched by CardFeed)
+            RequestCreator cover = CoverArt.request(itemView.getContext(), song);
+            if (cover != null) {
+                cover.placeholder(R.drawable.ic_launcher_foreground)
                         .error(R.drawable.ic_launcher_foreground)
                         .into(binding.albumCoverImageView);
             }
 
-            // Play / Stop preview button logic
+            // Play / Stop preview button logic (one shared player, see PreviewPlayer)
+            boundPreviewUrl = song.getPreviewUrl();
+            PreviewPlayer player = PreviewPlayer.get(itemView.getContext());
+            binding.btnPlayPreview.setText(player.isPlaying(boundPreviewUrl) ? "⏹ Stop" : "Play Preview");
             binding.btnPlayPreview.setOnClickListener(v -> {
-                if (isPreparingMedia) {
+                String url = song.getPreviewUrl();
+                if (url == null || url.isEmpty()) {
+                    Toast.makeText(v.getContext(), "No preview available", Toast.LENGTH_SHORT).show();
+                } else if (player.isLoading(url)) {
                     Toast.makeText(v.getContext(), "Please wait…", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-                if (mediaPlayer != null && mediaPlayer.isPlaying()) {
-                    stopPlayback();
+                } else if (player.isPlaying(url)) {
+                    player.stop();
                 } else {
-                    if (song.getPreviewUrl() == null || song.getPreviewUrl().isEmpty()) {
-                        Toast.makeText(v.getContext(), "No preview available", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-                    startPlayback(song.getPreviewUrl(), v);
+                    player.play(url, new ButtonCallback(url));
                 }
             });
         }
 
-        /** Starts asynchronous playback of the 30-sec Spotify preview. */
-        private void startPlayback(String previewUrl, View view) {
-            isPreparingMedia = true;
-            binding.btnPlayPreview.setText("⏳ Loading…");
-
-            if (mediaPlayer != null) mediaPlayer.release();
-            mediaPlayer = new MediaPlayer();
-
-            try {
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
-                    mediaPlayer.setAudioAttributes(
-                            new android.media.AudioAttributes.Builder()
-                                    .setContentType(android.media.AudioAttributes.CONTENT_TYPE_MUSIC)
-                                    .setUsage(android.media.AudioAttributes.USAGE_MEDIA)
-                                    .build());
-                } else {
-                    mediaPlayer.setAudioStreamType(android.media.AudioManager.STREAM_MUSIC);
-                }
+        /** Forgets the bound song so late player callbacks no longer touch this card. */
+        void unbind() {
+            boundPreviewUrl = null;
+            binding.btnPlayPreview.setOnClickListener(null);
+        }
+
+        /** Mirrors the player state on the button while this holder still shows that preview. */
+        private final class ButtonCallback implements PreviewPlayer.Callback {
+            private final String url;
 
-                mediaPlayer.setDataSource(previewUrl);
-                mediaPlayer.setOnPreparedListener(mp -> {
-                    isPreparingMedia = false;
-                    binding.btnPlayPreview.setText("⏹ Stop");
-                    mp.start();
-                });
-                mediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                    isPreparingMedia = false;
-                    binding.btnPlayPreview.setText("Play Preview");
-                    Toast.makeText(view.getContext(), "Failed to play preview", Toast.LENGTH_SHORT).show();
-                    return true;
-                });
-                mediaPlayer.setOnCompletionListener(mp -> {
-                    binding.btnPlayPreview.setText("Play Preview");
-                    stopPlayback();
-                });
-
-                mediaPlayer.prepareAsync();
-            } catch (IOException e) {
-                isPreparingMedia = false;
-                binding.btnPlayPreview.setText("Play Preview");
-                Toast.makeText(view.getContext(), "Error playing preview", Toast.LENGTH_SHORT).show();
-                e.printStackTrace();
+            ButtonCallback(String url) { this.url = url; }
+
+            @Override public void onLoading() { setLabel("⏳ Loading…"); }
+            @Override public void onStarted() { setLabel("⏹ Stop"); }
+            @Override public void onStopped() { setLabel("Play Preview"); }
+            @Override public void onError() {
+                setLabel("Play Preview");
+                Toast.makeText(itemView.getContext(), "Failed to play preview", Toast.LENGTH_SHORT).show();
             }
-        }
 
-        /** Stops and releases the MediaPlayer if active. */
-        private void stopPlayback() {
-            if (mediaPlayer != null) {
-                mediaPlayer.stop();
-                mediaPlayer.release();
-                mediaPlayer = null;
+            private void setLabel(String label) {
+                if (url.equals(boundPreviewUrl)) binding.btnPlayPreview.setText(label);
             }
-            binding.btnPlayPreview.setText("Play Preview");
-            isPreparingMedia = false;
         }
-
-        /** Should be called from Activity/Fragment to free resources. */
-        public void releaseResources() { stopPlayback(); }
     }
 }
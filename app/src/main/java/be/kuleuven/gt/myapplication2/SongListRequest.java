@@ -0,0 +1,66 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Volley request that decodes its response body straight into a List<Song>.
+ * Decoding happens in parseNetworkResponse(), i.e. on a Volley network
+ * dispatcher thread, so the UI thread only receives ready-made Songs.
+ * An optional bearer token adds the Spotify Authorization header.
+ */
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SongListRequest extends Request<List<Song>> {
+
+    /** Strategy that turns a response body into Songs (see SpotifyJsonDecoder). */
+    public interface Decoder {
+        List<Song> decode(Reader in) throws IOException;
+    }
+
+    private final Decoder decoder;
+    private final String bearerToken;
+    private final Response.Listener<List<Song>> listener;
+
+    public SongListRequest(String url, String bearerToken, Decoder decoder,
+                           Response.Listener<List<Song>> listener,
+                           Response.ErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+        this.decoder     = decoder;
+        this.bearerToken = bearerToken;
+        this.listener    = listener;
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        if (bearerToken != null) headers.put("Authorization", "Bearer " + bearerToken);
+        return headers;
+    }
+
+    /** Runs on the network dispatcher thread. */
+    @Override
+    protected Response<List<Song>> parseNetworkResponse(NetworkResponse response) {
+        Charset charset = Charset.forName(HttpHeaderParser.parseCharset(response.headers, "UTF-8"));
+        try (Reader in = new InputStreamReader(new ByteArrayInputStream(response.data), charset)) {
+            return Response.success(decoder.decode(in), HttpHeaderParser.parseCacheHeaders(response));
+        } catch (IOException | RuntimeException e) {
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    @Override
+    protected void deliverResponse(List<Song> songs) {
+        listener.onResponse(songs);
+    }
+}
@@ -0,0 +1,165 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Streaming JSON decoders that turn API responses straight into Song objects.
+ * • decodeTracks()          – Spotify /v1/tracks?ids=… payload
+ * • decodeRecommendations() – Groover song_recommendations array
+ * Only the fields Groover shows (id, uri, name, first artist, album image
+ * variants, preview) are read; everything else (available_markets, external_ids, …) is
+ * skipped token-by-token without building a DOM.
+ * Pure Java (Gson's JsonReader), so it also runs in JVM unit tests / benchmarks.
+ */
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class SpotifyJsonDecoder {
+
+    private SpotifyJsonDecoder() {}
+
+    /** Decodes {"tracks":[…]} into Songs; null entries (unknown IDs) are dropped. */
+    public static List<Song> decodeTracks(Reader in) throws IOException {
+        List<Song> out = new ArrayList<>();
+        JsonReader r = new JsonReader(in);
+        r.beginObject();
+        while (r.hasNext()) {
+            if (!"tracks".equals(r.nextName())) { r.skipValue(); continue; }
+
+            r.beginArray();
+            while (r.hasNext()) {
+                if (r.peek() == JsonToken.NULL) { r.nextNull(); continue; }
+                out.add(readTrack(r));
+            }
+            r.endArray();
+        }
+        r.endObject();
+        return out;
+    }
+
+    /** Decodes the backend’s [{id, name, artists}, …] array; rows without an ID are skipped. */
+    public static List<Song> decodeRecommendations(Reader in) throws IOException {
+        List<Song> out = new ArrayList<>();
+        JsonReader r = new JsonReader(in);
+        r.beginArray();
+        while (r.hasNext()) {
+            String id = null, name = "Unknown", artist = "Unknown Artist";
+
+            r.beginObject();
+            while (r.hasNext()) {
+                switch (r.nextName()) {
+                    case "id":      id     = nextStringOr(r, null);             break;
+                    case "name":    name   = nextStringOr(r, "Unknown");        break;
+                    case "artists": artist = nextStringOr(r, "Unknown Artist"); break;
+                    default:        r.skipValue();
+                }
+            }
+            r.endObject();
+
+            if (id != null && !id.isEmpty()) {
+                Song song = new Song(name, artist, "", null);
+                song.setId(id);
+                out.add(song);
+            }
+        }
+        r.endArray();
+        return out;
+    }
+
+    /** Reads a single Spotify track object (reader positioned at BEGIN_OBJECT). */
+    private static Song readTrack(JsonReader r) throws IOException {
+        String id = "", uri = "", name = "Unknown Title", artist = "Unknown Artist";
+        String preview = null;
+        List<String> coverUrls = new ArrayList<>(3);
+        List<Integer> coverWidths = new ArrayList<>(3);
+
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "id":          id      = nextStringOr(r, "");              break;
+                case "uri":         uri     = nextStringOr(r, "");              break;
+                case "name":        name    = nextStringOr(r, "Unknown Title"); break;
+                case "preview_url": preview = nextStringOr(r, null);            break;
+                case "artists":     artist  = readFirstArtist(r);               break;
+                case "album":       readAlbumCovers(r, coverUrls, coverWidths); break;
+                default:            r.skipValue();
+            }
+        }
+        r.endObject();
+
+        // images[0] is the largest; keep it as the default cover
+        Song song = new Song(id, uri, name, artist, coverUrls.isEmpty() ? "" : coverUrls.get(0), preview);
+        if (coverUrls.size() > 1) {
+            int[] widths = new int[coverWidths.size()];
+            for (int i = 0; i < widths.length; i++) widths[i] = coverWidths.get(i);
+            song.setCoverVariants(coverUrls.toArray(new String[0]), widths);
+        }
+        return song;
+    }
+
+    /** Returns the first artist’s name and skips the rest of the array. */
+    private static String readFirstArtist(JsonReader r) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_ARRAY) { r.skipValue(); return "Unknown Artist"; }
+
+        String artist = "Unknown Artist";
+        boolean first = true;
+        r.beginArray();
+        while (r.hasNext()) {
+            if (!first || r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); continue; }
+            first = false;
+
+            r.beginObject();
+            while (r.hasNext()) {
+                if ("name".equals(r.nextName())) artist = nextStringOr(r, "Unknown Artist");
+                else r.skipValue();
+            }
+            r.endObject();
+        }
+        r.endArray();
+        return artist;
+    }
+
+    /** Collects album.images[*] url/width pairs, skipping every other album field. */
+    private static void readAlbumCovers(JsonReader r, List<String> urls, List<Integer> widths) throws IOException {
+        if (r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); return; }
+
+        r.beginObject();
+        while (r.hasNext()) {
+            if (!"images".equals(r.nextName()) || r.peek() != JsonToken.BEGIN_ARRAY) {
+                r.skipValue();
+                continue;
+            }
+            r.beginArray();
+            while (r.hasNext()) {
+                if (r.peek() != JsonToken.BEGIN_OBJECT) { r.skipValue(); continue; }
+
+                String url = "";
+                int width = 0;
+                r.beginObject();
+                while (r.hasNext()) {
+                    String field = r.nextName();
+                    if ("url".equals(field)) url = nextStringOr(r, "");
+                    else if ("width".equals(field) && r.peek() == JsonToken.NUMBER) width = r.nextInt();
+                    else r.skipValue();
+                }
+                r.endObject();
+                if (!url.isEmpty()) { urls.add(url); widths.add(width); }
+            }
+            r.endArray();
+        }
+        r.endObject();
+    }
+
+    /** Reads a string (or number) value, returning the fallback for JSON null. */
+    private static String nextStringOr(JsonReader r, String fallback) throws IOException {
+        if (r.peek() == JsonToken.NULL) { r.nextNull(); return fallback; }
+        if (r.peek() == JsonToken.BEGIN_OBJECT || r.peek() == JsonToken.BEGIN_ARRAY) {
+            r.skipValue();
+            return fallback;
+        }
+        return r.nextString();
+    }
+}
@@ -0,0 +1,335 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Durable queue of tracks to save to the user’s Spotify library (“like on Spotify”).
+ * • enqueue() records the track locally (persisted to an AtomicFile) and returns;
+ *   taps are coalesced for a moment and sent MAX_BATCH IDs per PUT /v1/me/tracks
+ * • failed batches are retried with exponential backoff (Retry-After on 429);
+ *   a batch Spotify rejects as invalid is split in halves and resent until the
+ *   bad IDs are isolated; only those are dropped (and reported as rejected)
+ * • saveAll() streams every Groover like into the queue: liked-song pages are
+ *   only fetched while fewer than MAX_BATCH IDs are waiting, so thousands of likes
+ *   never sit in memory at once, and the page cursor is persisted so the bulk
+ *   save resumes after a restart
+ * Progress goes to one Listener and DebugStats.
+ * All public methods must be called on the UI thread.
+ */
+import android.content.Context;
+import android.net.Uri;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.JsonObjectRequest;
+import com.android.volley.toolbox.StringRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class SpotifyLikeQueue {
+
+    private static final String SAVE_URL  = "https://api.spotify.com/v1/me/tracks";
+    private static final String LIKES_URL = "https://studev.groept.be/api/a24pt103/get_liked_songs_page/";
+
+    private static final int  MAX_BATCH       = 50;          // Spotify’s limit for PUT /v1/me/tracks
+    private static final int  LIKES_PAGE_SIZE = 100;
+    private static final long FLUSH_DELAY_MS  = 2_000;       // coalesce taps for a moment
+    private static final long BACKOFF_BASE_MS = 2_000;
+    private static final long BACKOFF_MAX_MS  = 5 * 60_000;
+
+    /** Queue progress, delivered on the UI thread; rejected counts IDs Spotify refused. */
+    public interface Listener {
+        void onProgress(int saved, int pending, int rejected, boolean bulkRunning);
+    }
+
+    private static volatile SpotifyLikeQueue instance;
+
+    private final Context appContext;
+    private final AtomicFile file;
+    private final LinkedHashSet<String> queue = new LinkedHashSet<>();   // track IDs, FIFO
+    private final Runnable flushTask = this::flushNow;
+
+    // Bulk “save all”: whose likes, and the liked-songs page cursor to continue from
+    private String bulkUser = null;
+    private String bulkCursor = "0";
+
+    private boolean restored = false;   // no disk writes until the previous queue is loaded
+    private boolean busy = false;       // a PUT or a likes page is in flight
+    private int failedAttempts = 0;
+    private final BatchBisector bisector = new BatchBisector(MAX_BATCH);   // isolates IDs Spotify rejects
+    private Listener listener;
+
+    // --- Stats ---
+    private int saved = 0, batches = 0, failures = 0, rejected = 0;
+
+    public static SpotifyLikeQueue get(Context context) {
+        if (instance == null) {
+            synchronized (SpotifyLikeQueue.class) {
+                if (instance == null) instance = new SpotifyLikeQueue(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private SpotifyLikeQueue(Context appContext) {
+        this.appContext = appContext;
+        this.file       = new AtomicFile(new File(appContext.getFilesDir(), "spotify_like_queue.json"));
+        DebugStats.register("spotify likes", this::statsSummary);
+
+        // Restore what was left from the previous process, then continue delivering it
+        AppExecutors.io().execute(() -> {
+            JSONObject state = readFromDisk();
+            AppExecutors.main().execute(() -> {
+                LinkedHashSet<String> merged = new LinkedHashSet<>();
+                JSONArray ids = state.optJSONArray("ids");
+                if (ids != null) for (int i = 0; i < ids.length(); i++) merged.add(ids.optString(i));
+                merged.addAll(queue);
+                queue.clear();
+                queue.addAll(merged);
+                if (bulkUser == null && state.has("bulk_user")) {
+                    bulkUser   = state.optString("bulk_user");
+                    bulkCursor = state.optString("bulk_cursor", "0");
+                }
+                restored = true;
+                persist();
+                if (!queue.isEmpty() || bulkUser != null) scheduleFlush(0);
+            });
+        });
+    }
+
+    public void setListener(Listener l) {
+        listener = l;
+        notifyListener();
+    }
+
+    /** Detaches l, unless a newer screen has attached meanwhile. */
+    public void removeListener(Listener l) {
+        if (listener == l) listener = null;
+    }
+
+    /** Queues one track; it is saved with the next batch. */
+    public void enqueue(String trackId) {
+        if (!queue.add(trackId)) return;
+        persist();
+        notifyListener();
+
+        if (failedAttempts > 0) return;                    // backoff timer already scheduled
+        scheduleFlush(queue.size() >= MAX_BATCH ? 0 : FLUSH_DELAY_MS);
+    }
+
+    /** Saves every Groover like of username to Spotify, streaming through the liked pages. */
+    public void saveAll(String username) {
+        if (bulkUser != null) return;                      // already running
+        bulkUser   = username;
+        bulkCursor = "0";
+        persist();
+        notifyListener();
+        if (failedAttempts == 0) scheduleFlush(0);
+    }
+
+    /** Sends the next batch now, fetching more likes first while a bulk save is running. */
+    public void flushNow() {
+        AppExecutors.cancelMain(flushTask);
+        if (busy || !restored) return;
+
+        if (bulkUser != null && queue.size() < MAX_BATCH) {
+            fetchLikesPage();
+            return;
+        }
+        if (queue.isEmpty()) return;
+
+        String token = appContext.getSharedPreferences("grooverPrefs", Context.MODE_PRIVATE)
+                .getString("SPOTIFY_TOKEN", null);
+        if (token == null) {
+            Log.w("SPOTIFY_LIKES", "No Spotify token; " + queue.size() + " likes wait for the next login");
+            return;
+        }
+
+        List<String> batch = new ArrayList<>(MAX_BATCH);
+        for (String id : queue) {
+            if (batch.size() == bisector.limit()) break;
+            batch.add(id);
+        }
+        byte[] body;
+        try {
+            body = new JSONObject().put("ids", new JSONArray(batch)).toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            Log.e("SPOTIFY_LIKES", "Cannot encode batch", e);
+            return;
+        }
+
+        busy = true;
+        StringRequest request = new StringRequest(Request.Method.PUT, SAVE_URL,
+                response -> {
+                    busy = false;
+                    failedAttempts = 0;
+                    bisector.onAccepted(batch.size());
+                    batches++;
+                    saved += batch.size();
+                    queue.removeAll(batch);
+                    persist();
+                    notifyListener();
+                    continueOrStop();
+                },
+                error -> {
+                    busy = false;
+                    int status = error.networkResponse != null ? error.networkResponse.statusCode : 0;
+                    if (status == 400 || status == 404) {
+                        // Malformed/unknown IDs: retrying this batch cannot succeed, but the
+                        // other IDs in it may be fine – halve it until the bad ones are alone
+                        if (bisector.onRefused(batch.size())) {
+                            rejected++;
+                            Log.e("SPOTIFY_LIKES", "Spotify rejected " + batch.get(0) + " (" + status + "), dropping it");
+                            queue.remove(batch.get(0));
+                            persist();
+                            notifyListener();
+                        }
+                        continueOrStop();
+                        return;
+                    }
+                    retryLater(error);
+                }) {
+            @Override
+            public Map<String, String> getHeaders() {
+                Map<String, String> headers = new HashMap<>();
+                headers.put("Authorization", "Bearer " + token);
+                return headers;
+            }
+
+            @Override
+            public String getBodyContentType() {
+                return "application/json";
+            }
+
+            @Override
+            public byte[] getBody() {
+                return body;
+            }
+        };
+        request.setRetryPolicy(new DefaultRetryPolicy(10_000, 0, 1f));   // backoff handled here
+        request.setShouldCache(false);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** Pulls the next page of the bulk user’s likes into the queue. */
+    private void fetchLikesPage() {
+        String user = bulkUser;
+        String url = String.format(Locale.US, "%s%s/%s/%d", LIKES_URL, Uri.encode(user), bulkCursor, LIKES_PAGE_SIZE);
+
+        busy = true;
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> {
+                    busy = false;
+                    if (!user.equals(bulkUser)) return;
+                    try {
+                        JSONArray songs = response.getJSONArray("songs");
+                        for (int i = 0; i < songs.length(); i++) queue.add(songs.getJSONObject(i).getString("songid"));
+                        bulkCursor = response.getString("cursor");
+                        if (!response.optBoolean("has_more") || songs.length() == 0) bulkUser = null;
+                    } catch (JSONException e) {
+                        Log.e("SPOTIFY_LIKES", "Malformed likes page, stopping the bulk save", e);
+                        bulkUser = null;
+                    }
+                    failedAttempts = 0;
+                    persist();
+                    notifyListener();
+                    continueOrStop();
+                },
+                error -> {
+                    busy = false;
+                    retryLater(error);
+                });
+        request.setShouldCache(false);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private void continueOrStop() {
+        if (!queue.isEmpty() || bulkUser != null) scheduleFlush(0);
+    }
+
+    private void retryLater(VolleyError error) {
+        failures++;
+        long delay = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(failedAttempts, 16));
+        if (error.networkResponse != null && error.networkResponse.statusCode == 429) {
+            String retryAfter = error.networkResponse.headers != null
+                    ? error.networkResponse.headers.get("Retry-After") : null;
+            try {
+                if (retryAfter != null) delay = Math.max(delay, Long.parseLong(retryAfter.trim()) * 1000);
+            } catch (NumberFormatException ignored) {
+                // keep the exponential delay
+            }
+        }
+        failedAttempts++;
+        Log.w("SPOTIFY_LIKES", "Spotify save failed, retrying in " + delay + " ms", error);
+        scheduleFlush(delay);
+    }
+
+    private void scheduleFlush(long delayMs) {
+        AppExecutors.cancelMain(flushTask);
+        AppExecutors.mainDelayed(flushTask, delayMs);
+    }
+
+    private void notifyListener() {
+        if (listener != null) listener.onProgress(saved, queue.size(), rejected, bulkUser != null);
+    }
+
+    public String statsSummary() {
+        return String.format(Locale.US, "pending=%d, saved=%d in %d batches, failures=%d, rejected=%d, bulk=%s",
+                queue.size(), saved, batches, failures, rejected, bulkUser == null ? "off" : bulkUser);
+    }
+
+    // --- Persistence ---
+
+    /** Snapshots the queue on the UI thread and writes it on the I/O pool. */
+    private void persist() {
+        if (!restored) return;
+        JSONObject state = new JSONObject();
+        try {
+            state.put("ids", new JSONArray(queue));
+            if (bulkUser != null) state.put("bulk_user", bulkUser).put("bulk_cursor", bulkCursor);
+        } catch (JSONException e) {
+            Log.e("SPOTIFY_LIKES", "Cannot encode queue", e);
+            return;
+        }
+        byte[] bytes = state.toString().getBytes(StandardCharsets.UTF_8);
+        AppExecutors.io().execute(() -> writeToDisk(bytes));
+    }
+
+    private synchronized void writeToDisk(byte[] bytes) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(bytes);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.e("SPOTIFY_LIKES", "Persist failed", e);
+            if (out != null) file.failWrite(out);
+        }
+    }
+
+    private synchronized JSONObject readFromDisk() {
+        try {
+            return new JSONObject(new String(file.readFully(), StandardCharsets.UTF_8));
+        } catch (FileNotFoundException e) {
+            // Nothing queued yet
+        } catch (IOException | JSONException e) {
+            Log.e("SPOTIFY_LIKES", "Like queue file unreadable, starting empty", e);
+        }
+        return new JSONObject();
+    }
+}
@@ -0,0 +1,123 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Resolves Spotify track IDs to fully populated Songs.
+ * • Checks TrackMetadataCache (memory + disk) first, on a background thread
+ * • Sends only the cache misses to /v1/tracks, in chunks of at most 50 IDs
+ * • Stores fresh results back into the cache
+ * Results are delivered on the UI thread in the order the IDs were requested.
+ */
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+public final class SpotifyTrackRepository {
+
+    /** Spotify’s limit for GET /v1/tracks?ids=… */
+    public static final int MAX_IDS_PER_CALL = 50;
+
+    /** Receives resolved Songs; complete is false if some lookups failed. */
+    public interface Callback {
+        void onTracks(List<Song> songs, boolean complete);
+    }
+
+    private static volatile SpotifyTrackRepository instance;
+
+    private final Context appContext;
+    private final TrackMetadataCache cache;
+
+    public static SpotifyTrackRepository get(Context context) {
+        if (instance == null) {
+            synchronized (SpotifyTrackRepository.class) {
+                if (instance == null) instance = new SpotifyTrackRepository(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private SpotifyTrackRepository(Context appContext) {
+        this.appContext = appContext;
+        this.cache      = new TrackMetadataCache(appContext);
+        DebugStats.register("track cache", cache::statsSummary);
+    }
+
+    /** Resolves every ID, using the network only for cache misses. */
+    public void lookup(List<String> trackIds, String spotifyToken, Callback callback) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(trackIds));   // de-duplicate, keep order
+
+        AppExecutors.io().execute(() -> {
+            Map<String, Song> found   = new HashMap<>();
+            List<String>      missing = new ArrayList<>();
+            for (String id : ids) {
+                Song s = cache.get(id);
+                if (s != null) found.put(id, s);
+                else missing.add(id);
+            }
+            AppExecutors.main().execute(() -> fetchMissing(ids, found, missing, spotifyToken, callback));
+        });
+    }
+
+    /** Cache-only variant: returns whatever is already known, never hits the network. */
+    public void peekCached(List<String> trackIds, Callback callback) {
+        List<String> ids = new ArrayList<>(trackIds);
+        AppExecutors.io().execute(() -> {
+            Map<String, Song> found = new HashMap<>();
+            for (String id : ids) {
+                Song s = cache.get(id);
+                if (s != null) found.put(id, s);
+            }
+            AppExecutors.main().execute(() -> callback.onTracks(inOrder(ids, found), true));
+        });
+    }
+
+    /** Runs on the UI thread: one /v1/tracks request per chunk of misses. */
+    private void fetchMissing(List<String> ids, Map<String, Song> found, List<String> missing,
+                              String spotifyToken, Callback callback) {
+        if (missing.isEmpty()) {
+            callback.onTracks(inOrder(ids, found), true);
+            return;
+        }
+
+        int chunks = (missing.size() + MAX_IDS_PER_CALL - 1) / MAX_IDS_PER_CALL;
+        int[] pending  = { chunks };
+        boolean[] failed = { false };
+
+        Runnable chunkDone = () -> {
+            if (--pending[0] == 0) callback.onTracks(inOrder(ids, found), !failed[0]);
+        };
+
+        for (int c = 0; c < chunks; c++) {
+            List<String> chunk = missing.subList(c * MAX_IDS_PER_CALL,
+                    Math.min(missing.size(), (c + 1) * MAX_IDS_PER_CALL));
+            String url = "https://api.spotify.com/v1/tracks?ids=" + String.join(",", chunk);
+
+            SongListRequest request = new SongListRequest(
+                    url, spotifyToken, SpotifyJsonDecoder::decodeTracks,
+                    songs -> {
+                        for (Song s : songs) found.put(s.getId(), s);
+                        AppExecutors.io().execute(() -> { for (Song s : songs) cache.put(s); });
+                        chunkDone.run();
+                    },
+                    error -> {
+                        Log.e("SPOTIFY_BATCH_ERR", "Request failed: " + error, error);
+                        failed[0] = true;
+                        chunkDone.run();
+                    });
+            GrooverNetwork.get(appContext).add(request);
+        }
+    }
+
+    private static List<Song> inOrder(List<String> ids, Map<String, Song> found) {
+        List<Song> out = new ArrayList<>();
+        for (String id : ids) {
+            Song s = found.get(id);
+            if (s != null) out.add(s);
+        }
+        return out;
+    }
+}
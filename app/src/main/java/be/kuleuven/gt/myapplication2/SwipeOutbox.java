@@ -0,0 +1,273 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Durable write-behind outbox for swipe events.
+ * • enqueue() records the swipe locally (persisted to an AtomicFile) and returns
+ * • events are uploaded in batches to save_user_swipes_bulk
+ * • failed uploads are retried with exponential backoff; the queue survives restarts
+ * • a batch the server rejects as invalid (4xx) is split in halves and resent, so
+ *   a malformed swipe is isolated and dropped without blocking or losing the rest
+ * • duplicate swipes of the same song are dropped, and every event carries a
+ *   client-generated ID so a retried batch is not inserted twice server-side
+ * Queue depth and flush latency are reported through DebugStats.
+ * All public methods must be called on the UI thread.
+ */
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.Request;
+import com.android.volley.toolbox.StringRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+public final class SwipeOutbox {
+
+    private static final String URL = "https://studev.groept.be/api/a24pt103/save_user_swipes_bulk";
+
+    private static final int  MAX_BATCH       = 50;
+    private static final int  FLUSH_THRESHOLD = 20;       // flush immediately at this depth
+    private static final long FLUSH_DELAY_MS  = 3_000;    // otherwise coalesce swipes for a moment
+    private static final long BACKOFF_BASE_MS = 2_000;
+    private static final long BACKOFF_MAX_MS  = 5 * 60_000;
+
+    /** One pending swipe. */
+    private static final class SwipeEvent {
+        final String eventId, username, songId, title, artist;
+        final boolean liked;
+        final long swipedAt;
+
+        SwipeEvent(String eventId, String username, String songId, boolean liked,
+                   String title, String artist, long swipedAt) {
+            this.eventId  = eventId;
+            this.username = username;
+            this.songId   = songId;
+            this.liked    = liked;
+            this.title    = title;
+            this.artist   = artist;
+            this.swipedAt = swipedAt;
+        }
+
+        String key() { return username + "/" + songId; }
+
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                    .put("event_id", eventId).put("username", username).put("songid", songId)
+                    .put("liked", liked ? 1 : 0).put("title", title).put("artist", artist)
+                    .put("swiped_at", swipedAt);
+        }
+
+        static SwipeEvent fromJson(JSONObject o) throws JSONException {
+            return new SwipeEvent(o.getString("event_id"), o.getString("username"),
+                    o.getString("songid"), o.getInt("liked") == 1,
+                    o.optString("title"), o.optString("artist"), o.getLong("swiped_at"));
+        }
+    }
+
+    private static volatile SwipeOutbox instance;
+
+    private final Context appContext;
+    private final AtomicFile file;
+    private final LinkedHashMap<String, SwipeEvent> queue = new LinkedHashMap<>();   // key → event, FIFO
+
+    private boolean restored = false;   // no disk writes until the previous queue is loaded
+    private boolean flushing = false;
+    private int failedAttempts = 0;
+    private final BatchBisector bisector = new BatchBisector(MAX_BATCH);   // isolates a rejected swipe
+    private final Runnable flushTask = this::flushNow;
+
+    // --- Stats ---
+    private long lastFlushMs = -1, totalFlushMs = 0;
+    private int flushes = 0, failures = 0, duplicatesDropped = 0, rejected = 0;
+
+    public static SwipeOutbox get(Context context) {
+        if (instance == null) {
+            synchronized (SwipeOutbox.class) {
+                if (instance == null) instance = new SwipeOutbox(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private SwipeOutbox(Context appContext) {
+        this.appContext = appContext;
+        this.file       = new AtomicFile(new File(appContext.getFilesDir(), "swipe_outbox.json"));
+        DebugStats.register("swipe outbox", this::statsSummary);
+
+        // Restore whatever was left from the previous process, then try to deliver it
+        AppExecutors.io().execute(() -> {
+            List<SwipeEvent> saved = readFromDisk();
+            AppExecutors.main().execute(() -> {
+                LinkedHashMap<String, SwipeEvent> merged = new LinkedHashMap<>();
+                for (SwipeEvent e : saved) merged.put(e.key(), e);
+                for (SwipeEvent e : queue.values()) merged.putIfAbsent(e.key(), e);
+                queue.clear();
+                queue.putAll(merged);
+                restored = true;
+                persist();
+                if (!queue.isEmpty()) scheduleFlush(0);
+            });
+        });
+    }
+
+    /** Records a swipe; it is uploaded later in a batch. Repeated swipes of the same song are ignored. */
+    public void enqueue(String username, Song song, boolean liked) {
+        SwipeEvent e = new SwipeEvent(UUID.randomUUID().toString(), username, song.getId(), liked,
+                song.getName(), song.getArtist(), System.currentTimeMillis());
+        if (queue.containsKey(e.key())) {
+            duplicatesDropped++;
+            return;
+        }
+        queue.put(e.key(), e);
+        persist();
+
+        if (failedAttempts > 0) return;                    // backoff timer already scheduled
+        scheduleFlush(queue.size() >= FLUSH_THRESHOLD ? 0 : FLUSH_DELAY_MS);
+    }
+
+    /** Uploads pending events right away (e.g. when the swipe screen goes to the background). */
+    public void flushNow() {
+        AppExecutors.cancelMain(flushTask);
+        if (flushing || queue.isEmpty()) return;
+
+        // One batch per request, all for the same user
+        List<SwipeEvent> batch = new ArrayList<>();
+        String username = queue.values().iterator().next().username;
+        for (SwipeEvent e : queue.values()) {
+            if (batch.size() == bisector.limit()) break;
+            if (e.username.equals(username)) batch.add(e);
+        }
+
+        JSONArray swipes = new JSONArray();
+        try {
+            for (SwipeEvent e : batch) swipes.put(e.toJson());
+        } catch (JSONException ex) {
+            Log.e("SWIPE_OUTBOX", "Cannot encode batch", ex);
+            return;
+        }
+
+        flushing = true;
+        long start = System.currentTimeMillis();
+
+        StringRequest request = new StringRequest(
+                Request.Method.POST, URL,
+                response -> {
+                    recordFlush(System.currentTimeMillis() - start);
+                    Log.d("SWIPE_OUTBOX", "Uploaded " + batch.size() + " swipes: " + response);
+                    for (SwipeEvent e : batch) queue.remove(e.key());
+                    persist();
+                    flushing = false;
+                    failedAttempts = 0;
+                    bisector.onAccepted(batch.size());
+                    if (!queue.isEmpty()) scheduleFlush(0);
+                },
+                error -> {
+                    failures++;
+                    flushing = false;
+                    int status = error.networkResponse != null ? error.networkResponse.statusCode : 0;
+                    if (status >= 400 && status < 500 && status != 408 && status != 429) {
+                        // Retrying the same batch cannot succeed: halve it until the bad swipe is alone
+                        if (bisector.onRefused(batch.size())) {
+                            rejected++;
+                            Log.e("SWIPE_OUTBOX", "Server rejected swipe " + batch.get(0).key() + " (" + status + "), dropping it");
+                            queue.remove(batch.get(0).key());
+                            persist();
+                        }
+                        if (!queue.isEmpty()) scheduleFlush(0);
+                        return;
+                    }
+                    long delay = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(failedAttempts, 16));
+                    failedAttempts++;
+                    Log.w("SWIPE_OUTBOX", "Upload failed, retrying in " + delay + " ms", error);
+                    scheduleFlush(delay);
+                }) {
+            @Override
+            protected Map<String, String> getParams() {
+                Map<String, String> p = new HashMap<>();
+                p.put("username", username);
+                p.put("swipes",   swipes.toString());
+                return p;
+            }
+        };
+        request.setRetryPolicy(new DefaultRetryPolicy(10_000, 0, 1f));   // backoff handled here
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    /** Number of swipes not yet confirmed by the server. */
+    public int depth() { return queue.size(); }
+
+    private void scheduleFlush(long delayMs) {
+        AppExecutors.cancelMain(flushTask);
+        AppExecutors.mainDelayed(flushTask, delayMs);
+    }
+
+    private void recordFlush(long ms) {
+        lastFlushMs = ms;
+        totalFlushMs += ms;
+        flushes++;
+    }
+
+    public String statsSummary() {
+        return String.format(Locale.US,
+                "depth=%d, flushes=%d, last=%dms avg=%dms, failures=%d, dupes dropped=%d, rejected=%d",
+                queue.size(), flushes, lastFlushMs,
+                flushes == 0 ? 0 : totalFlushMs / flushes, failures, duplicatesDropped, rejected);
+    }
+
+    // --- Persistence ---
+
+    /** Snapshots the queue on the UI thread and writes it on the I/O pool. */
+    private void persist() {
+        if (!restored) return;
+        JSONArray snapshot = new JSONArray();
+        try {
+            for (SwipeEvent e : queue.values()) snapshot.put(e.toJson());
+        } catch (JSONException ex) {
+            Log.e("SWIPE_OUTBOX", "Cannot encode queue", ex);
+            return;
+        }
+        byte[] bytes = snapshot.toString().getBytes(StandardCharsets.UTF_8);
+        AppExecutors.io().execute(() -> writeToDisk(bytes));
+    }
+
+    private synchronized void writeToDisk(byte[] bytes) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(bytes);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            Log.e("SWIPE_OUTBOX", "Persist failed", e);
+            if (out != null) file.failWrite(out);
+        }
+    }
+
+    private synchronized List<SwipeEvent> readFromDisk() {
+        List<SwipeEvent> events = new ArrayList<>();
+        try {
+            JSONArray arr = new JSONArray(new String(file.readFully(), StandardCharsets.UTF_8));
+            for (int i = 0; i < arr.length(); i++) events.add(SwipeEvent.fromJson(arr.getJSONObject(i)));
+        } catch (FileNotFoundException e) {
+            // Nothing queued yet
+        } catch (IOException | JSONException e) {
+            Log.e("SWIPE_OUTBOX", "Outbox file unreadable, starting empty", e);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,414 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Set of every track the user has already swiped (since the last playlist).
+ * • membership is a Bloom-filter test followed, only on a “maybe”, by a binary
+ *   search over a sorted array of fixed-width IDs – no per-ID objects
+ * • new swipes go into a small hash set and are merged into the sorted array
+ *   when the history is persisted
+ * • on disk: header, Bloom bits and sorted IDs in one AtomicFile, so start-up
+ *   reads a single file instead of re-downloading the whole history
+ * • sync() pulls only swipes after the stored server cursor; when the server
+ *   reports a newer playlist boundary, the set starts over from that boundary
+ * Thread-safe; disk work runs on AppExecutors.io(). sync() is called on the UI thread.
+ */
+import android.content.Context;
+import android.net.Uri;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.android.volley.Request;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+public final class SwipedHistory {
+
+    private static final int MAGIC          = 0x47525348;   // "GRSH"
+    private static final int FORMAT_VERSION = 2;
+    private static final int ID_LENGTH      = FeatureCatalogue.ID_LENGTH;
+    private static final int BITS_PER_ID    = 10;           // ≈1% false positives with 7 hashes
+    private static final int HASHES         = 7;
+    private static final long PERSIST_DELAY_MS = 2_000;
+    private static final int  SYNC_PAGE_SIZE   = 1_000;
+    private static final String SYNC_URL = "https://studev.groept.be/api/a24pt103/get_swiped_song_ids_since/";
+
+    private static volatile SwipedHistory instance;
+
+    private final Context appContext;
+    private final AtomicFile file;
+    private final CountDownLatch loadedLatch = new CountDownLatch(1);
+    private final Runnable persistTask = this::persistAsync;
+
+    // Compacted part: sorted IDs + Bloom filter covering them and everything in `recent`
+    private byte[] sorted = new byte[0];
+    private int sortedCount = 0;
+    private long[] bloom = new long[16];
+    private final Set<String> recent = new HashSet<>();   // added since the last compaction
+
+    // Server sync state: whose history this is, last swipe row seen, playlist boundary
+    private String owner = "";
+    private long cursor = 0;
+    private long boundary = 0;
+    private boolean syncing = false;
+
+    private boolean loaded = false;
+    private boolean persistScheduled = false;
+    private int bloomRejects = 0, lookups = 0;
+
+    public static SwipedHistory get(Context context) {
+        if (instance == null) {
+            synchronized (SwipedHistory.class) {
+                if (instance == null) instance = new SwipedHistory(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private SwipedHistory(Context appContext) {
+        this.appContext = appContext;
+        this.file = new AtomicFile(new File(appContext.getFilesDir(), "swiped_history.bin"));
+        DebugStats.register("swiped history", this::statsSummary);
+        AppExecutors.io().execute(this::load);
+    }
+
+    /** True if the track was swiped before (a Bloom “no” answers without a search). */
+    public synchronized boolean contains(String id) {
+        if (id == null) return false;
+        lookups++;
+        if (recent.contains(id)) return true;
+        if (id.length() != ID_LENGTH) return false;
+
+        byte[] key = id.getBytes(StandardCharsets.US_ASCII);
+        if (!mightContain(bloom, key, 0)) {
+            bloomRejects++;
+            return false;
+        }
+        return search(sorted, sortedCount, key) >= 0;
+    }
+
+    /** Records a swipe; returns false if the track was already in the history. */
+    public boolean add(String id) {
+        synchronized (this) {
+            if (id == null || contains(id)) return false;
+            recent.add(id);
+            if (id.length() == ID_LENGTH) put(bloom, id.getBytes(StandardCharsets.US_ASCII), 0);
+        }
+        schedulePersist();
+        return true;
+    }
+
+    /** Adds IDs fetched from the server. */
+    public void addAll(Collection<String> ids) {
+        boolean changed = false;
+        synchronized (this) {
+            for (String id : ids) {
+                if (id == null || contains(id)) continue;
+                recent.add(id);
+                if (id.length() == ID_LENGTH) put(bloom, id.getBytes(StandardCharsets.US_ASCII), 0);
+                changed = true;
+            }
+        }
+        if (changed) schedulePersist();
+    }
+
+    private void reset() {
+        sorted = new byte[0];
+        sortedCount = 0;
+        bloom = new long[16];
+        recent.clear();
+    }
+
+    /**
+     * Pulls the swipes recorded server-side after the stored cursor (one page of
+     * SYNC_PAGE_SIZE at a time), then runs done on the UI thread – also on failure.
+     */
+    public void sync(String username, Runnable done) {
+        if (syncing) {
+            done.run();
+            return;
+        }
+        syncing = true;
+        AppExecutors.io().execute(() -> {
+            try {
+                loadedLatch.await();                      // cursor comes from the file
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            AppExecutors.main().execute(() -> fetchPage(username, done));
+        });
+    }
+
+    private void fetchPage(String username, Runnable done) {
+        long from;
+        synchronized (this) {
+            from = username.equals(owner) ? cursor : 0;   // another account starts from scratch
+        }
+        String url = String.format(Locale.US, "%s%s/%d/%d", SYNC_URL, Uri.encode(username), from, SYNC_PAGE_SIZE);
+
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> {
+                    try {
+                        long serverBoundary = response.getLong("boundary");
+                        JSONArray ids = response.getJSONArray("songids");
+                        List<String> page = new ArrayList<>(ids.length());
+                        for (int i = 0; i < ids.length(); i++) page.add(ids.getString(i));
+
+                        synchronized (this) {
+                            if (!username.equals(owner) || serverBoundary != boundary) {
+                                reset();                  // a playlist consumed the earlier swipes
+                                owner = username;
+                                boundary = serverBoundary;
+                                cursor = 0;
+                            }
+                            cursor = Math.max(cursor, response.getLong("cursor"));
+                        }
+                        addAll(page);
+                        schedulePersist();
+
+                        if (response.optBoolean("has_more") && !page.isEmpty()) {
+                            fetchPage(username, done);
+                            return;
+                        }
+                    } catch (JSONException e) {
+                        Log.e("SWIPED_HISTORY", "Malformed swipe delta", e);
+                    }
+                    syncing = false;
+                    done.run();
+                },
+                error -> {
+                    Log.w("SWIPED_HISTORY", "Swipe sync failed, using local history", error);
+                    syncing = false;
+                    done.run();
+                });
+
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    public synchronized int size() { return sortedCount + recent.size(); }
+
+    /** Returns the songs whose IDs are not in the history, in their original order. */
+    public List<Song> filterUnswiped(List<Song> songs) {
+        List<Song> out = new ArrayList<>(songs.size());
+        for (Song s : songs) if (!contains(s.getId())) out.add(s);
+        return out;
+    }
+
+    // --- Bloom filter / sorted array ---
+
+    private static long hash(byte[] a, int off) {
+        long h = 0xcbf29ce484222325L;                 // FNV-1a, 64 bit
+        for (int i = 0; i < ID_LENGTH; i++) {
+            h ^= a[off + i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static void put(long[] bits, byte[] a, int off) {
+        long h = hash(a, off);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        long m = (long) bits.length * 64;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = ((h1 + i * h2) & 0x7fffffffL) % m;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private static boolean mightContain(long[] bits, byte[] a, int off) {
+        long h = hash(a, off);
+        int h1 = (int) h, h2 = (int) (h >>> 32);
+        long m = (long) bits.length * 64;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = ((h1 + i * h2) & 0x7fffffffL) % m;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private static int compare(byte[] a, int aOff, byte[] b, int bOff) {
+        for (int i = 0; i < ID_LENGTH; i++) {
+            int diff = (a[aOff + i] & 0xff) - (b[bOff + i] & 0xff);
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+
+    private static int search(byte[] ids, int count, byte[] key) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(ids, mid * ID_LENGTH, key, 0);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private static long[] bloomFor(int ids) {
+        int words = Math.max(16, Integer.highestOneBit(Math.max(1, ids * BITS_PER_ID / 64)) * 2);
+        return new long[words];
+    }
+
+    // --- Persistence ---
+
+    private void schedulePersist() {
+        AppExecutors.main().execute(() -> {
+            if (persistScheduled) return;
+            persistScheduled = true;
+            AppExecutors.mainDelayed(persistTask, PERSIST_DELAY_MS);
+        });
+    }
+
+    private void persistAsync() {
+        persistScheduled = false;
+        AppExecutors.io().execute(this::compactAndWrite);
+    }
+
+    /** Merges `recent` into the sorted array, rebuilds the Bloom filter and writes the file. */
+    private void compactAndWrite() {
+        byte[] base;
+        int baseCount;
+        List<String> pending;
+        synchronized (this) {
+            if (!loaded) return;                          // load() persists again once done
+            base = sorted;
+            baseCount = sortedCount;
+            pending = new ArrayList<>(recent);
+        }
+
+        // Sort the new fixed-width IDs (lexicographic String order == byte order for ASCII)
+        List<String> fixed = new ArrayList<>();
+        for (String id : pending) if (id.length() == ID_LENGTH) fixed.add(id);
+        String[] added = fixed.toArray(new String[0]);
+        Arrays.sort(added);
+
+        byte[] merged = new byte[(baseCount + added.length) * ID_LENGTH];
+        byte[] key = new byte[ID_LENGTH];
+        int n = 0, b = 0, a = 0;
+        while (b < baseCount || a < added.length) {
+            int cmp;
+            if (a < added.length) {
+                for (int i = 0; i < ID_LENGTH; i++) key[i] = (byte) added[a].charAt(i);
+                cmp = b == baseCount ? 1 : compare(base, b * ID_LENGTH, key, 0);
+            } else {
+                cmp = -1;
+            }
+            if (cmp <= 0) {
+                System.arraycopy(base, b++ * ID_LENGTH, merged, n++ * ID_LENGTH, ID_LENGTH);
+                if (cmp == 0) a++;
+            } else {
+                System.arraycopy(key, 0, merged, n++ * ID_LENGTH, ID_LENGTH);
+                a++;
+            }
+        }
+        long[] bits = bloomFor(n);
+        for (int i = 0; i < n; i++) put(bits, merged, i * ID_LENGTH);
+
+        String user;
+        long syncCursor, syncBoundary;
+        synchronized (this) {
+            if (sorted != base) return;                   // cleared meanwhile; the next persist handles it
+            sorted = merged;
+            sortedCount = n;
+            recent.removeAll(fixed);
+            for (String id : recent) if (id.length() == ID_LENGTH) put(bits, id.getBytes(StandardCharsets.US_ASCII), 0);
+            bloom = bits;
+            user = owner;
+            syncCursor = cursor;
+            syncBoundary = boundary;
+        }
+        write(merged, n, bits, user, syncCursor, syncBoundary);
+    }
+
+    private void write(byte[] ids, int count, long[] bits, String user, long syncCursor, long syncBoundary) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeUTF(user);
+            data.writeLong(syncCursor);
+            data.writeLong(syncBoundary);
+            data.writeInt(count);
+            data.writeInt(bits.length);
+            for (long word : bits) data.writeLong(word);
+            data.write(ids, 0, count * ID_LENGTH);
+            data.flush();
+            file.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) file.failWrite(out);
+            Log.e("SWIPED_HISTORY", "Could not persist swiped history", e);
+        }
+    }
+
+    private void load() {
+        byte[] ids = new byte[0];
+        long[] bits = null;
+        int count = 0;
+        String user = "";
+        long syncCursor = 0, syncBoundary = 0;
+        try (DataInputStream in = new DataInputStream(file.openRead())) {
+            if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {   // older formats: full resync
+                user = in.readUTF();
+                syncCursor = in.readLong();
+                syncBoundary = in.readLong();
+                count = in.readInt();
+                bits = new long[in.readInt()];
+                for (int i = 0; i < bits.length; i++) bits[i] = in.readLong();
+                ids = new byte[count * ID_LENGTH];
+                in.readFully(ids);
+            }
+        } catch (FileNotFoundException e) {
+            // first run – nothing swiped yet
+        } catch (IOException e) {
+            Log.w("SWIPED_HISTORY", "Discarding unreadable swiped history", e);
+            count = 0;
+            bits = null;
+        }
+
+        boolean hasPending;
+        synchronized (this) {
+            if (bits != null) {
+                sorted = ids;
+                sortedCount = count;
+                for (String id : recent) if (id.length() == ID_LENGTH) put(bits, id.getBytes(StandardCharsets.US_ASCII), 0);
+                bloom = bits;
+                owner = user;
+                cursor = syncCursor;
+                boundary = syncBoundary;
+            }
+            loaded = true;
+            hasPending = !recent.isEmpty();
+        }
+        loadedLatch.countDown();
+        Log.d("SWIPED_HISTORY", "Loaded " + count + " swiped IDs");
+        if (hasPending) compactAndWrite();
+    }
+
+    private synchronized String statsSummary() {
+        return size() + " IDs, bloom " + bloom.length * 64 + " bits, "
+                + bloomRejects + "/" + lookups + " lookups answered by bloom";
+    }
+}
@@ -0,0 +1,88 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Fan-in stage for the “Top Songs” flow.
+ * Collects the audio-feature vectors of the user’s top tracks and, once every
+ * expected answer (or failure) has arrived, combines them into one taste
+ * profile (a MoodPreset) and fires the completion callback exactly once.
+ * • continuous features – arithmetic mean
+ * • key                 – most frequent pitch class
+ * • mode                – majority vote (major wins ties)
+ * Must be used from a single thread (Volley delivers on the UI thread).
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+public class TasteProfileAggregator {
+
+    /** Receives the combined profile, or null when no track had features. */
+    public interface OnProfileReady {
+        void onProfile(MoodSelector.MoodPreset profile, int tracksUsed);
+    }
+
+    private final List<MoodSelector.MoodPreset> collected = new ArrayList<>();
+    private final OnProfileReady callback;
+    private int outstanding;
+    private boolean cancelled = false;
+
+    public TasteProfileAggregator(int expected, OnProfileReady callback) {
+        this.outstanding = expected;
+        this.callback    = callback;
+        if (expected == 0) finish();
+    }
+
+    /** Adds one track’s feature vector. */
+    public void add(MoodSelector.MoodPreset features) {
+        collected.add(features);
+        arrived();
+    }
+
+    /** Marks one expected track as unavailable (no features / request failed). */
+    public void skip() {
+        arrived();
+    }
+
+    /** Drops the result (e.g. the user picked a mood while features were loading). */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void arrived() {
+        if (--outstanding == 0) finish();
+    }
+
+    private void finish() {
+        if (cancelled) return;
+        callback.onProfile(collected.isEmpty() ? null : combine(collected), collected.size());
+    }
+
+    /** Combines feature vectors into a single target profile. */
+    public static MoodSelector.MoodPreset combine(List<MoodSelector.MoodPreset> vectors) {
+        double energy = 0, loudness = 0, speechiness = 0, acousticness = 0;
+        double instrumentalness = 0, liveness = 0, valence = 0, tempo = 0;
+        int[] keyVotes = new int[12];
+        int majorVotes = 0;
+
+        for (MoodSelector.MoodPreset v : vectors) {
+            energy           += v.energy;
+            loudness         += v.loudness;
+            speechiness      += v.speechiness;
+            acousticness     += v.acousticness;
+            instrumentalness += v.instrumentalness;
+            liveness         += v.liveness;
+            valence          += v.valence;
+            tempo            += v.tempo;
+            if (v.key >= 0 && v.key < 12) keyVotes[v.key]++;
+            if (v.mode == 1) majorVotes++;
+        }
+
+        int key = 0;
+        for (int k = 1; k < 12; k++) if (keyVotes[k] > keyVotes[key]) key = k;
+
+        int n = vectors.size();
+        return new MoodSelector.MoodPreset(
+                energy / n, key, loudness / n, majorVotes * 2 >= n ? 1 : 0,
+                speechiness / n, acousticness / n, instrumentalness / n,
+                liveness / n, valence / n, tempo / n);
+    }
+}
@@ -0,0 +1,195 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Two-level cache of resolved Spotify track metadata, keyed by Spotify ID.
+ * • Memory tier – LruCache of the most recently used Songs
+ * • Disk tier   – one small binary file per track under cacheDir/track_meta
+ * Entries older than the TTL are treated as misses; the disk tier is trimmed
+ * (oldest first) whenever it grows past its byte budget.
+ * Disk access blocks, so get()/put() must be called off the UI thread;
+ * getFromMemory() is safe anywhere.
+ */
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TrackMetadataCache {
+
+    private static final int  FORMAT_VERSION     = 2;   // 2: cover variants
+    private static final int  MEMORY_ENTRIES     = 500;
+    private static final long DISK_BUDGET_BYTES  = 2L * 1024 * 1024;
+    private static final long TTL_MS             = TimeUnit.DAYS.toMillis(7);
+    private static final int  WRITES_PER_TRIM    = 50;
+
+    /** A cached Song plus the time it was resolved. */
+    private static final class Entry {
+        final Song song;
+        final long storedAt;
+        Entry(Song song, long storedAt) { this.song = song; this.storedAt = storedAt; }
+    }
+
+    private final LruCache<String, Entry> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final File diskDir;
+    private int writesSinceTrim = 0;
+
+    // --- Stats ---
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits   = new AtomicLong();
+    private final AtomicLong misses     = new AtomicLong();
+
+    public TrackMetadataCache(Context context) {
+        diskDir = new File(context.getCacheDir(), "track_meta");
+        if (!diskDir.exists() && !diskDir.mkdirs()) Log.w("TRACK_CACHE", "Cannot create " + diskDir);
+    }
+
+    /** Memory-only lookup; never touches disk. */
+    public Song getFromMemory(String id) {
+        Entry e = memory.get(id);
+        if (e == null || isExpired(e.storedAt)) return null;
+        return e.song;
+    }
+
+    /** Memory then disk lookup. Blocking – call from a background thread. */
+    public Song get(String id) {
+        Entry e = memory.get(id);
+        if (e != null && !isExpired(e.storedAt)) {
+            memoryHits.incrementAndGet();
+            return e.song;
+        }
+
+        e = readFromDisk(id);
+        if (e != null && !isExpired(e.storedAt)) {
+            memory.put(id, e);
+            diskHits.incrementAndGet();
+            return e.song;
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /** Stores a freshly resolved Song in memory immediately, then on disk. Blocking. */
+    public void put(Song song) {
+        if (song.getId() == null || song.getId().isEmpty()) return;
+        Entry e = new Entry(song, System.currentTimeMillis());
+        memory.put(song.getId(), e);
+        writeToDisk(e);
+    }
+
+    /** Clears both tiers (e.g. from a debug action). Blocking. */
+    public void clear() {
+        memory.evictAll();
+        File[] files = diskDir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+    }
+
+    public String statsSummary() {
+        long mem = memoryHits.get(), disk = diskHits.get(), miss = misses.get();
+        long total = mem + disk + miss;
+        double hitRate = total == 0 ? 0 : 100.0 * (mem + disk) / total;
+        return String.format(Locale.US,
+                "hit %.0f%% (mem=%d disk=%d miss=%d), %d in memory",
+                hitRate, mem, disk, miss, memory.size());
+    }
+
+    private static boolean isExpired(long storedAt) {
+        return System.currentTimeMillis() - storedAt > TTL_MS;
+    }
+
+    // --- Disk tier ---
+
+    private File fileFor(String id) {
+        // Spotify IDs are base-62, so they are safe file names as-is
+        return new File(diskDir, id);
+    }
+
+    private Entry readFromDisk(String id) {
+        File f = fileFor(id);
+        if (!f.exists()) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (in.readInt() != FORMAT_VERSION) return null;
+            long storedAt  = in.readLong();
+            String uri     = in.readUTF();
+            String name    = in.readUTF();
+            String artist  = in.readUTF();
+            String cover   = in.readUTF();
+            String preview = in.readBoolean() ? in.readUTF() : null;
+            Song song = new Song(id, uri, name, artist, cover, preview);
+            int variants = in.readByte();
+            if (variants > 0) {
+                String[] urls = new String[variants];
+                int[] widths = new int[variants];
+                for (int i = 0; i < variants; i++) { urls[i] = in.readUTF(); widths[i] = in.readShort(); }
+                song.setCoverVariants(urls, widths);
+            }
+            return new Entry(song, storedAt);
+        } catch (IOException e) {
+            Log.w("TRACK_CACHE", "Dropping unreadable entry " + id, e);
+            f.delete();
+            return null;
+        }
+    }
+
+    private synchronized void writeToDisk(Entry e) {
+        Song s = e.song;
+        File tmp = new File(diskDir, s.getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(e.storedAt);
+            out.writeUTF(nonNull(s.getUri()));
+            out.writeUTF(nonNull(s.getName()));
+            out.writeUTF(nonNull(s.getArtist()));
+            out.writeUTF(nonNull(s.getAlbumCoverUrl()));
+            out.writeBoolean(s.getPreviewUrl() != null);
+            if (s.getPreviewUrl() != null) out.writeUTF(s.getPreviewUrl());
+            out.writeByte(s.getCoverUrls().length);
+            for (int i = 0; i < s.getCoverUrls().length; i++) {
+                out.writeUTF(s.getCoverUrls()[i]);
+                out.writeShort(s.getCoverWidths()[i]);
+            }
+        } catch (IOException ex) {
+            Log.w("TRACK_CACHE", "Write failed for " + s.getId(), ex);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(fileFor(s.getId()))) tmp.delete();
+
+        if (++writesSinceTrim >= WRITES_PER_TRIM) {
+            writesSinceTrim = 0;
+            trimDisk();
+        }
+    }
+
+    /** Deletes the least recently written files until the directory fits the budget. */
+    private void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) return;
+
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= DISK_BUDGET_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= DISK_BUDGET_BYTES * 3 / 4) break;   // trim with some headroom
+            total -= f.length();
+            f.delete();
+        }
+    }
+
+    private static String nonNull(String s) { return s != null ? s : ""; }
+}
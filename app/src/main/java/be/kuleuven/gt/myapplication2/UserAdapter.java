@@ -3,6 +3,7 @@ package be.kuleuven.gt.myapplication2;
 /**
  * Simple RecyclerView adapter that lists usernames.
  * Clicking a username opens OtherUserProfileActivity for that user.
+ * Rows are keyed by username (stable IDs); updateList() diffs off the UI thread.
  */
 import android.app.Activity;
 import android.content.Intent;
@@ -12,25 +13,27 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder> {
 
-    private List<String> userList;
+    private final AsyncListDiffer<String> differ = new AsyncListDiffer<>(this, ItemDiffs.config(ItemDiffs.USERNAMES));
     private final Activity activity;
 
     /** Constructs the adapter with the initial list and calling Activity. */
     public UserAdapter(List<String> userList, Activity activity) {
-        this.userList = userList;
         this.activity = activity;
+        setHasStableIds(true);
+        updateList(userList);
     }
 
-    /** Replaces the current list and refreshes the view. */
+    /** Replaces the current list; only changed rows are rebound. */
     public void updateList(List<String> newList) {
-        this.userList = newList;
-        notifyDataSetChanged();
+        differ.submitList(new ArrayList<>(newList));
     }
 
     @NonNull
@@ -43,7 +46,7 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        String username = userList.get(position);
+        String username = differ.getCurrentList().get(position);
         holder.usernameTextView.setText(username);
 
         holder.usernameTextView.setOnClickListener(v -> {
@@ -54,7 +57,12 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
     }
 
     @Override
-    public int getItemCount() { return userList.size(); }
+    public long getItemId(int position) {
+        return ItemDiffs.stableId(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public int getItemCount() { return differ.getCurrentList().size(); }
 
     /** Holds the TextView for each row. */
     static class UserViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,168 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Locally cached prefix index of usernames seen in earlier searches.
+ * • a TreeMap keyed by the lower-cased name, so a prefix lookup is one range
+ *   view (log n + matches) instead of a scan that lower-cases every entry
+ * • filled from server search results; a complete answer for a prefix also
+ *   drops local names under it that no longer exist
+ * • persisted in one AtomicFile (debounced), so the next search screen has
+ *   instant local results before the server answers
+ * Thread-safe; disk work runs on AppExecutors.io().
+ */
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public final class UserIndex {
+
+    private static final int  MAGIC            = 0x47525549;   // "GRUI"
+    private static final int  FORMAT_VERSION   = 1;
+    private static final long PERSIST_DELAY_MS = 2_000;
+
+    private static volatile UserIndex instance;
+
+    private final AtomicFile file;
+    private final TreeMap<String, String> names = new TreeMap<>();   // lower-cased → as registered
+    private final Runnable persistTask = this::persistAsync;
+    private boolean persistScheduled = false;
+    private boolean loaded = false;
+
+    public static UserIndex get(Context context) {
+        if (instance == null) {
+            synchronized (UserIndex.class) {
+                if (instance == null) instance = new UserIndex(context.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    private UserIndex(Context appContext) {
+        this.file = new AtomicFile(new File(appContext.getFilesDir(), "user_index.bin"));
+        DebugStats.register("user index", () -> "names=" + size());
+        AppExecutors.io().execute(this::load);
+    }
+
+    /** Up to limit known usernames starting with prefix (case-insensitive), in name order. */
+    public synchronized List<String> lookup(String prefix, int limit) {
+        List<String> out = new ArrayList<>(Math.min(limit, 32));
+        for (String name : range(key(prefix)).values()) {
+            if (out.size() >= limit) break;
+            out.add(name);
+        }
+        return out;
+    }
+
+    /**
+     * Adds server results for prefix. When complete is true they are every user
+     * under that prefix, so local names missing from them are removed.
+     */
+    public void merge(String prefix, Collection<String> users, boolean complete) {
+        synchronized (this) {
+            if (complete) {
+                Set<String> keep = new HashSet<>();
+                for (String u : users) keep.add(key(u));
+                Iterator<String> it = range(key(prefix)).keySet().iterator();
+                while (it.hasNext()) if (!keep.contains(it.next())) it.remove();
+            }
+            for (String u : users) names.put(key(u), u);
+        }
+        schedulePersist();
+    }
+
+    public synchronized int size() { return names.size(); }
+
+    private SortedMap<String, String> range(String keyPrefix) {
+        return names.subMap(keyPrefix, keyPrefix + Character.MAX_VALUE);
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    // --- Persistence ---
+
+    private void schedulePersist() {
+        AppExecutors.main().execute(() -> {
+            if (persistScheduled) return;
+            persistScheduled = true;
+            AppExecutors.mainDelayed(persistTask, PERSIST_DELAY_MS);
+        });
+    }
+
+    private void persistAsync() {
+        persistScheduled = false;
+        AppExecutors.io().execute(this::write);
+    }
+
+    private void write() {
+        List<String> snapshot;
+        synchronized (this) {
+            if (!loaded) return;                          // load() persists again once done
+            snapshot = new ArrayList<>(names.values());
+        }
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(snapshot.size());
+            for (String name : snapshot) data.writeUTF(name);
+            data.flush();
+            file.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) file.failWrite(out);
+            Log.e("USER_INDEX", "Could not persist user index", e);
+        }
+    }
+
+    private void load() {
+        List<String> stored = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(file.openRead())) {
+            if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) stored.add(in.readUTF());
+            }
+        } catch (FileNotFoundException e) {
+            // first search on this device
+        } catch (IOException e) {
+            Log.w("USER_INDEX", "Discarding unreadable user index", e);
+            stored.clear();
+        }
+        boolean mergedMeanwhile;
+        synchronized (this) {
+            // Results merged while loading are newer than the file
+            mergedMeanwhile = !names.isEmpty();
+            for (String name : stored) names.putIfAbsent(key(name), name);
+            loaded = true;
+        }
+        if (mergedMeanwhile) schedulePersist();
+        Log.d("USER_INDEX", "Loaded " + stored.size() + " usernames");
+    }
+
+    /** Both lists merged in index order, without case-insensitive duplicates. */
+    static List<String> union(Collection<String> a, Collection<String> b) {
+        TreeMap<String, String> out = new TreeMap<>();
+        for (String u : a) out.putIfAbsent(key(u), u);
+        for (String u : b) out.putIfAbsent(key(u), u);
+        return new ArrayList<>(out.values());
+    }
+}
@@ -0,0 +1,75 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * One user’s profile as served by get_profile: bio, picture rendition hashes
+ * and a summary of their likes, in a single response.
+ * • the endpoint sends an ETag with max-age=0 and a stale-while-revalidate
+ *   window: a cached profile is delivered at once and revalidated with
+ *   If-None-Match; only a changed profile is delivered a second time, an
+ *   unchanged one costs an empty 304
+ * • the rendition hashes are handed to ProfileImageLoader, which then needs no
+ *   metadata call of its own
+ * • latestLike lets LikedSongPager skip its first-page refresh when the stored
+ *   pages already start with the newest like
+ */
+import android.content.Context;
+import android.util.Log;
+
+import com.android.volley.Request;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import org.json.JSONObject;
+
+public final class UserProfile {
+
+    private static final String PROFILE_URL = "https://studev.groept.be/api/a24pt103/get_profile/";
+
+    /** Delivered on the UI thread. */
+    public interface Callback {
+        void onProfile(UserProfile profile);
+        void onError();
+    }
+
+    public final String username;
+    public final String bio;
+    public final int    likeCount;
+    public final String latestLike;   // keyset cursor of the newest like, "" if none
+
+    private UserProfile(String username, String bio, int likeCount, String latestLike) {
+        this.username   = username;
+        this.bio        = bio;
+        this.likeCount  = likeCount;
+        this.latestLike = latestLike;
+    }
+
+    /**
+     * Loads (or revalidates) the profile; also records the current picture hashes.
+     * onProfile may run twice: cached copy first, then the changed profile.
+     */
+    public static void fetch(Context context, String username, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, PROFILE_URL + username, null,
+                response -> {
+                    JSONObject image = response.optJSONObject("image");
+                    if (image != null) {
+                        ProfileImageLoader.get(appContext).remember(username,
+                                image.optString("thumb"), image.optString("medium"), image.optString("full"));
+                    }
+                    JSONObject likes = response.optJSONObject("likes");
+                    callback.onProfile(new UserProfile(username,
+                            response.optString("bio", ""),
+                            likes != null ? likes.optInt("count") : 0,
+                            likes != null ? likes.optString("latest", "") : ""));
+                },
+                error -> {
+                    Log.w("USER_PROFILE", "Profile fetch failed for " + username, error);
+                    callback.onError();
+                });
+        GrooverNetwork.get(appContext).add(request);   // cached + revalidated via ETag
+    }
+
+    /** Forgets the cached profile after the user changed it (bio, photo). */
+    public static void invalidate(Context context, String username) {
+        GrooverNetwork.get(context).invalidate(PROFILE_URL + username, null);
+    }
+}
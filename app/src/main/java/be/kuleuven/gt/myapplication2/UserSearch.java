@@ -0,0 +1,141 @@
+package be.kuleuven.gt.myapplication2;
+
+/**
+ * Debounced typeahead pipeline behind the user-search screen.
+ * • every keystroke answers at once from the local UserIndex
+ * • the server prefix search (search_users) only runs once typing pauses
+ *   for DEBOUNCE_MS; a newer query cancels the older request and its late
+ *   answer is ignored
+ * • server pages (PAGE_SIZE names after a username cursor) are merged into
+ *   the local results and fed back into the index; loadMore() fetches the next page
+ * All methods must be called on the UI thread.
+ */
+import android.content.Context;
+import android.util.Log;
+
+import com.android.volley.Request;
+import com.android.volley.toolbox.JsonObjectRequest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class UserSearch {
+
+    public static final int PAGE_SIZE = 20;
+    private static final long   DEBOUNCE_MS = 250;
+    private static final String SEARCH_URL  = "https://studev.groept.be/api/a24pt103/search_users/";
+    private static final String SEGMENT_MARK = "~";
+
+    /** Receives the current result list (local, then merged with server pages). */
+    public interface Listener {
+        void onResults(List<String> usernames);
+    }
+
+    private final Context appContext;
+    private final String currentUser;
+    private final Listener listener;
+    private final UserIndex index;
+    private final Object requestTag = new Object();
+    private final Runnable debounced = this::fetchPage;
+
+    private String prefix = "";
+    private String cursor = "";                                // last username of the previous page
+    private final List<String> serverResults = new ArrayList<>();
+    private boolean hasMore = false;
+    private boolean loading = false;
+    private int generation = 0;
+
+    public UserSearch(Context context, String currentUser, Listener listener) {
+        this.appContext  = context.getApplicationContext();
+        this.currentUser = currentUser;
+        this.listener    = listener;
+        this.index       = UserIndex.get(context);
+    }
+
+    /** New search text: local results now, server results after the debounce delay. */
+    public void query(String text) {
+        cancel();
+        prefix = text.trim();
+        cursor = "";
+        serverResults.clear();
+        hasMore = false;
+
+        publish(index.lookup(prefix, PAGE_SIZE + 1));           // +1: the current user is filtered out
+        AppExecutors.mainDelayed(debounced, DEBOUNCE_MS);
+    }
+
+    /** Fetches the next server page of the current query, if there is one. */
+    public void loadMore() {
+        if (hasMore && !loading) fetchPage();
+    }
+
+    /** Drops the pending debounce and any in-flight request (e.g. when the screen closes). */
+    public void cancel() {
+        generation++;
+        loading = false;
+        AppExecutors.cancelMain(debounced);
+        GrooverNetwork.get(appContext).cancelAll(requestTag);
+    }
+
+    private void fetchPage() {
+        int requestGeneration = generation;
+        String requestPrefix  = prefix;
+        boolean firstPage     = cursor.isEmpty();
+        loading = true;
+
+        String url = SEARCH_URL + segment(requestPrefix) + "/" + segment(cursor) + "/" + PAGE_SIZE;
+        JsonObjectRequest request = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> {
+                    if (requestGeneration != generation) return;  // the user typed on
+                    loading = false;
+                    try {
+                        JSONArray users = response.getJSONArray("users");
+                        List<String> page = new ArrayList<>(users.length());
+                        for (int i = 0; i < users.length(); i++) page.add(users.getString(i));
+
+                        hasMore = response.optBoolean("has_more") && !page.isEmpty();
+                        cursor  = response.optString("cursor", cursor);
+                        serverResults.addAll(page);
+                        index.merge(requestPrefix, page, firstPage && !hasMore);
+
+                        publish(UserIndex.union(serverResults, index.lookup(requestPrefix, serverResults.size())));
+                    } catch (JSONException e) {
+                        Log.e("USER_SEARCH", "Malformed search response", e);
+                    }
+                },
+                error -> {
+                    if (requestGeneration != generation) return;
+                    loading = false;
+                    Log.w("USER_SEARCH", "Server search failed, showing local results", error);
+                });
+        request.setTag(requestTag);
+        GrooverNetwork.get(appContext).add(request);
+    }
+
+    private void publish(List<String> usernames) {
+        List<String> out = new ArrayList<>(usernames.size());
+        for (String u : usernames) if (!u.equals(currentUser)) out.add(u);
+        listener.onResults(out);
+    }
+
+    /**
+     * A path segment carrying s behind a SEGMENT_MARK, so an empty prefix or cursor
+     * never produces an empty segment ("search_users///20"); the server strips the mark.
+     */
+    private static String segment(String s) {
+        return SEGMENT_MARK + encode(s);
+    }
+
+    private static String encode(String s) {
+        try {
+            return URLEncoder.encode(s, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
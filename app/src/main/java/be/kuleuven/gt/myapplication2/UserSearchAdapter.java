@@ -5,6 +5,8 @@ package be.kuleuven.gt.myapplication2;
  * • Shows each username with an “Add Friend” button
  * • Opens profile on name tap; sends friend-request on button tap
  * • Behaviour can vary slightly when launched from ProfileActivity
+ * Rows are keyed by username (stable IDs); submitList() diffs off the UI
+ * thread, so each typeahead update only touches rows that changed.
  */
 import android.app.Activity;
 import android.view.LayoutInflater;
@@ -13,26 +15,31 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
 
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.List;
 
 public class UserSearchAdapter extends RecyclerView.Adapter<UserSearchAdapter.UserViewHolder> {
 
-    private final List<String> users;
+    private final AsyncListDiffer<String> differ = new AsyncListDiffer<>(this, ItemDiffs.config(ItemDiffs.USERNAMES));
     private final String currentUser;
     private final boolean fromProfile;
     private final Activity activity;
 
-    /** Adapter receives the user list, current user, and calling Activity. */
-    public UserSearchAdapter(List<String> users,
-                             String currentUser,
+    /** Adapter receives the current user and calling Activity; rows come from submitList(). */
+    public UserSearchAdapter(String currentUser,
                              boolean fromProfile,
                              Activity activity) {
-        this.users       = users;
         this.currentUser = currentUser;
         this.fromProfile = fromProfile;
         this.activity    = activity;
+        setHasStableIds(true);
+    }
+
+    /** Shows these usernames; only rows that differ from the current list are touched. */
+    public void submitList(List<String> usernames) {
+        differ.submitList(usernames);
     }
 
     @Override
@@ -45,7 +52,7 @@ public class UserSearchAdapter extends RecyclerView.Adapter<UserSearchAdapter.Us
     /** Binds username text and click-listeners for each row. */
     @Override
     public void onBindViewHolder(UserViewHolder holder, int position) {
-        String username = users.get(position);
+        String username = differ.getCurrentList().get(position);
         holder.usernameText.setText(username);
 
         // Open selected user’s profile
@@ -60,7 +67,12 @@ public class UserSearchAdapter extends RecyclerView.Adapter<UserSearchAdapter.Us
     }
 
     @Override
-    public int getItemCount() { return users.size(); }
+    public long getItemId(int position) {
+        return ItemDiffs.stableId(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public int getItemCount() { return differ.getCurrentList().size(); }
 
     /** Holds the views for a single list item. */
     static class UserViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,41 @@
+package be.kuleuven.gt.myapplication2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Bisection of refused batches: the reduced size must survive accepted halves
+ * until the bad item is dropped, and only then go back to the full batch.
+ */
+public class BatchBisectorTest {
+
+    @Test
+    public void keepsReducedLimitUntilBadItemIsDropped() {
+        BatchBisector bisector = new BatchBisector(8);
+
+        assertFalse(bisector.onRefused(8));          // bad item somewhere in 0..7
+        assertEquals(4, bisector.limit());
+        bisector.onAccepted(4);                      // 0..3 fine
+        assertEquals(4, bisector.limit());
+        assertFalse(bisector.onRefused(4));          // bad item in 4..7
+        assertEquals(2, bisector.limit());
+        bisector.onAccepted(2);                      // 4..5 fine
+        assertFalse(bisector.onRefused(2));
+        assertEquals(1, bisector.limit());
+        assertTrue(bisector.onRefused(1));           // item 6 alone: drop it
+        assertEquals(8, bisector.limit());
+    }
+
+    @Test
+    public void restoresLimitOnceRefusedBatchWentThrough() {
+        BatchBisector bisector = new BatchBisector(8);
+
+        assertFalse(bisector.onRefused(8));
+        bisector.onAccepted(4);
+        bisector.onAccepted(4);                      // the refusal did not repeat
+        assertEquals(8, bisector.limit());
+    }
+}
@@ -0,0 +1,91 @@
+package be.kuleuven.gt.myapplication2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Delta merges of the columnar feature catalogue: an empty delta (the server had
+ * no rows newer than our version) must leave the catalogue byte-for-byte as it was,
+ * and upserts/tombstones must land at their sorted position.
+ */
+public class FeatureCatalogueDeltaTest {
+
+    private static final String A = "0000000000000000000001";
+    private static final String B = "0000000000000000000002";
+    private static final String C = "0000000000000000000003";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void emptyDeltaKeepsCatalogue() throws IOException {
+        File base = catalogue("base.bin", 7, A, C);
+        FeatureCatalogue catalogue = FeatureCatalogue.open(base);
+
+        FeatureCatalogue.Delta delta = new FeatureCatalogue.Delta(catalogue.version());
+        assertEquals(0, delta.size());
+        assertEquals(7, delta.version());
+
+        File merged = tmp.newFile("merged.bin");
+        try (OutputStream out = new FileOutputStream(merged)) {
+            catalogue.writeMerged(delta, out);
+        }
+        assertArrayEquals(Files.readAllBytes(base.toPath()), Files.readAllBytes(merged.toPath()));
+    }
+
+    @Test
+    public void upsertsAndTombstonesMergeInIdOrder() throws IOException {
+        FeatureCatalogue catalogue = FeatureCatalogue.open(catalogue("base.bin", 7, A, C));
+
+        FeatureCatalogue.Delta delta = new FeatureCatalogue.Delta(catalogue.version());
+        delta.add(B, row(0.5f), 8);
+        delta.add(A, null, 9);
+        FeatureCatalogue next = merge(catalogue, delta, "merged.bin");
+
+        assertEquals(9, next.version());
+        assertEquals(2, next.size());
+        assertEquals(B, next.id(0));
+        assertEquals(C, next.id(1));
+        assertEquals(0.5f, next.energy(0), 0f);
+        assertEquals(-1, next.indexOf(A));
+    }
+
+    /** Writes a catalogue holding ids (energy = position) at version. */
+    private File catalogue(String name, long version, String... ids) throws IOException {
+        FeatureCatalogue.Delta delta = new FeatureCatalogue.Delta(version);
+        for (int i = 0; i < ids.length; i++) delta.add(ids[i], row(i), version);
+        File file = tmp.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            FeatureCatalogue.EMPTY.writeMerged(delta, out);
+        }
+        return file;
+    }
+
+    private FeatureCatalogue merge(FeatureCatalogue catalogue, FeatureCatalogue.Delta delta, String name)
+            throws IOException {
+        File file = tmp.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            catalogue.writeMerged(delta, out);
+        }
+        return FeatureCatalogue.open(file);
+    }
+
+    private static float[] row(float energy) {
+        float[] f = new float[FeatureIndex.DIMS];
+        f[0] = energy;
+        f[1] = 5;        // key
+        f[3] = 1;        // mode
+        f[9] = 120;      // tempo
+        return f;
+    }
+}
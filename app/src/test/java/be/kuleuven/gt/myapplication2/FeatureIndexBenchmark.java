@@ -0,0 +1,132 @@
+package be.kuleuven.gt.myapplication2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * JVM benchmark for the on-device KD-tree at 100k and 1M feature vectors.
+ * Prints build time and mean top-K query latency (with an exclusion set)
+ * next to a brute-force linear scan; the assertion checks that both agree.
+ * Skipped unless run with -Dbenchmarks=true.
+ */
+public class FeatureIndexBenchmark {
+
+    private static final int K       = 50;
+    private static final int QUERIES = 200;
+
+    @Before
+    public void onlyOnRequest() {
+        assumeTrue("benchmarks disabled", Boolean.getBoolean("benchmarks"));
+    }
+
+    @Test
+    public void benchmark100k() { run(100_000); }
+
+    @Test
+    public void benchmark1M() { run(1_000_000); }
+
+    private static void run(int n) {
+        Random rnd = new Random(42);
+        float[] raw = syntheticCatalogue(n, rnd);
+
+        long t0 = System.nanoTime();
+        FeatureIndex index = FeatureIndex.build(raw, n);
+        long buildMs = (System.nanoTime() - t0) / 1_000_000;
+
+        float[] normalized = new float[n * FeatureIndex.DIMS];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = FeatureIndex.normalize(i % FeatureIndex.DIMS, raw[i]);
+        }
+
+        // ~2% of the catalogue already swiped
+        boolean[] swiped = new boolean[n];
+        for (int i = 0; i < n / 50; i++) swiped[rnd.nextInt(n)] = true;
+        IntPredicate excluded = row -> swiped[row];
+
+        float[][] queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = FeatureIndex.queryFor(randomPreset(rnd));
+        }
+
+        for (int q = 0; q < 20; q++) {      // correctness + warm-up
+            assertArrayEquals(bruteForce(normalized, n, queries[q], K, swiped),
+                    index.nearest(queries[q], K, excluded));
+        }
+
+        long treeStart = System.nanoTime();
+        for (float[] q : queries) index.nearest(q, K, excluded);
+        double treeUs = (System.nanoTime() - treeStart) / 1000.0 / QUERIES;
+
+        long bruteStart = System.nanoTime();
+        for (int q = 0; q < 20; q++) bruteForce(normalized, n, queries[q], K, swiped);
+        double bruteUs = (System.nanoTime() - bruteStart) / 1000.0 / 20;
+
+        System.out.printf("n=%,d: build %d ms, kd-tree %.1f µs/query, linear scan %.1f µs/query (top-%d)%n",
+                n, buildMs, treeUs, bruteUs, K);
+    }
+
+    /** Clustered vectors, roughly shaped like real audio features (genres form clusters). */
+    private static float[] syntheticCatalogue(int n, Random rnd) {
+        int clusters = 64;
+        float[][] centres = new float[clusters][];
+        for (int c = 0; c < clusters; c++) centres[c] = presetToRaw(randomPreset(rnd));
+
+        float[] spread = { .1f, 3f, 4f, 0f, .05f, .15f, .15f, .1f, .15f, 15f };
+        float[] raw = new float[n * FeatureIndex.DIMS];
+        for (int i = 0; i < n; i++) {
+            float[] centre = centres[rnd.nextInt(clusters)];
+            for (int d = 0; d < FeatureIndex.DIMS; d++) {
+                float v = centre[d] + (float) rnd.nextGaussian() * spread[d];
+                if (d == 1) v = Math.floorMod(Math.round(v), 12);       // key: pitch class
+                if (d == 3) v = rnd.nextFloat() < .7f ? 1 : 0;          // mode: mostly major
+                raw[i * FeatureIndex.DIMS + d] = v;
+            }
+        }
+        return raw;
+    }
+
+    private static MoodSelector.MoodPreset randomPreset(Random rnd) {
+        return new MoodSelector.MoodPreset(
+                rnd.nextDouble(), rnd.nextInt(12), -20 + rnd.nextDouble() * 18, rnd.nextInt(2),
+                rnd.nextDouble() * .3, rnd.nextDouble(), rnd.nextDouble() * .8, rnd.nextDouble() * .5,
+                rnd.nextDouble(), 70 + rnd.nextDouble() * 100);
+    }
+
+    private static float[] presetToRaw(MoodSelector.MoodPreset p) {
+        return new float[] {
+                (float) p.energy, p.key, (float) p.loudness, p.mode, (float) p.speechiness,
+                (float) p.acousticness, (float) p.instrumentalness, (float) p.liveness,
+                (float) p.valence, (float) p.tempo };
+    }
+
+    /** Reference answer: full scan + partial selection sort. */
+    private static int[] bruteForce(float[] pts, int n, float[] q, int k, boolean[] swiped) {
+        int[] best = new int[k];
+        float[] bestDist = new float[k];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (swiped[i]) continue;
+            float dist = 0f;
+            for (int d = 0; d < FeatureIndex.DIMS; d++) {
+                float diff = q[d] - pts[i * FeatureIndex.DIMS + d];
+                dist += diff * diff;
+            }
+            if (count < k) {
+                int j = count++;
+                while (j > 0 && bestDist[j - 1] > dist) { bestDist[j] = bestDist[j - 1]; best[j] = best[j - 1]; j--; }
+                bestDist[j] = dist; best[j] = i;
+            } else if (dist < bestDist[k - 1]) {
+                int j = k - 1;
+                while (j > 0 && bestDist[j - 1] > dist) { bestDist[j] = bestDist[j - 1]; best[j] = best[j - 1]; j--; }
+                bestDist[j] = dist; best[j] = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,124 @@
+package be.kuleuven.gt.myapplication2;
+
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JVM micro-benchmark: streaming SpotifyJsonDecoder vs. the previous org.json DOM path
+ * on a realistic 50-track /v1/tracks payload. Prints parse time and bytes allocated
+ * per decode; the assertion only checks that both paths produce the same Songs.
+ */
+public class SpotifyJsonDecoderBenchmark {
+
+    private static final int TRACKS     = 50;
+    private static final int WARMUP     = 200;
+    private static final int ITERATIONS = 1000;
+
+    @Test
+    public void streamingDecoderMatchesDomAndReportsCost() throws Exception {
+        String payload = buildTracksPayload(TRACKS);
+
+        List<Song> dom    = decodeWithDom(payload);
+        List<Song> stream = SpotifyJsonDecoder.decodeTracks(new StringReader(payload));
+        assertEquals(dom.size(), stream.size());
+        for (int i = 0; i < dom.size(); i++) {
+            assertEquals(dom.get(i).getId(),            stream.get(i).getId());
+            assertEquals(dom.get(i).getUri(),           stream.get(i).getUri());
+            assertEquals(dom.get(i).getName(),          stream.get(i).getName());
+            assertEquals(dom.get(i).getArtist(),        stream.get(i).getArtist());
+            assertEquals(dom.get(i).getAlbumCoverUrl(), stream.get(i).getAlbumCoverUrl());
+            assertEquals(dom.get(i).getPreviewUrl(),    stream.get(i).getPreviewUrl());
+        }
+
+        System.out.printf("payload: %d tracks, %d KB%n", TRACKS, payload.length() / 1024);
+        measure("org.json DOM", () -> decodeWithDom(payload));
+        measure("streaming   ", () -> SpotifyJsonDecoder.decodeTracks(new StringReader(payload)));
+    }
+
+    private interface Decode { List<Song> run() throws Exception; }
+
+    private static void measure(String label, Decode decode) throws Exception {
+        for (int i = 0; i < WARMUP; i++) decode.run();
+
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid         = Thread.currentThread().getId();
+        long allocBefore = mx.getThreadAllocatedBytes(tid);
+        long start       = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) sink += decode.run().size();
+        long elapsed = System.nanoTime() - start;
+        long alloc   = mx.getThreadAllocatedBytes(tid) - allocBefore;
+
+        System.out.printf("%s: %8.1f µs/decode, %8.1f KB allocated/decode (%d)%n",
+                label, elapsed / 1000.0 / ITERATIONS, alloc / 1024.0 / ITERATIONS, sink);
+    }
+
+    /** The pre-streaming MainActivity.fetchSpotifyDetailsInBatch parsing logic. */
+    private static List<Song> decodeWithDom(String payload) throws Exception {
+        JSONArray tracks = new JSONObject(payload).getJSONArray("tracks");
+        List<Song> out = new ArrayList<>();
+        for (int i = 0; i < tracks.length(); i++) {
+            JSONObject obj  = tracks.getJSONObject(i);
+            String name     = obj.optString("name", "Unknown Title");
+            String preview  = obj.isNull("preview_url") ? null : obj.optString("preview_url", null);
+            String uri      = obj.optString("uri", "");
+            String id       = obj.optString("id", "");
+            String artist   = "Unknown Artist";
+
+            JSONArray artists = obj.optJSONArray("artists");
+            if (artists != null && artists.length() > 0) {
+                artist = artists.getJSONObject(0).optString("name", "Unknown Artist");
+            }
+            String cover = obj.getJSONObject("album").getJSONArray("images")
+                    .getJSONObject(0).optString("url", "");
+
+            out.add(new Song(id, uri, name, artist, cover, preview));
+        }
+        return out;
+    }
+
+    /** Synthetic payload shaped like Spotify’s full track objects (markets, album, artists…). */
+    private static String buildTracksPayload(int count) {
+        StringBuilder markets = new StringBuilder();
+        for (int m = 0; m < 180; m++) {
+            if (m > 0) markets.append(',');
+            markets.append('"').append((char) ('A' + m % 26)).append((char) ('A' + m / 26)).append('"');
+        }
+
+        StringBuilder sb = new StringBuilder("{\"tracks\":[");
+        for (int i = 0; i < count; i++) {
+            String id = String.format("%022d", i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"album\":{\"album_type\":\"album\",\"artists\":[{\"name\":\"Album Artist ").append(i)
+              .append("\",\"id\":\"a").append(i).append("\",\"type\":\"artist\"}],")
+              .append("\"available_markets\":[").append(markets).append("],")
+              .append("\"external_urls\":{\"spotify\":\"https://open.spotify.com/album/").append(id).append("\"},")
+              .append("\"id\":\"").append(id).append("\",")
+              .append("\"images\":[")
+              .append("{\"height\":640,\"url\":\"https://i.scdn.co/image/640_").append(i).append("\",\"width\":640},")
+              .append("{\"height\":300,\"url\":\"https://i.scdn.co/image/300_").append(i).append("\",\"width\":300},")
+              .append("{\"height\":64,\"url\":\"https://i.scdn.co/image/64_").append(i).append("\",\"width\":64}],")
+              .append("\"name\":\"Album ").append(i).append("\",\"release_date\":\"2020-01-01\",\"total_tracks\":12},")
+              .append("\"artists\":[{\"name\":\"Artist ").append(i).append("\",\"id\":\"r").append(i).append("\"},")
+              .append("{\"name\":\"Featured ").append(i).append("\",\"id\":\"f").append(i).append("\"}],")
+              .append("\"available_markets\":[").append(markets).append("],")
+              .append("\"disc_number\":1,\"duration_ms\":215000,\"explicit\":false,")
+              .append("\"external_ids\":{\"isrc\":\"USRC1").append(i).append("\"},")
+              .append("\"id\":\"").append(id).append("\",")
+              .append("\"name\":\"Track ").append(i).append("\",\"popularity\":").append(i % 100).append(',')
+              .append("\"preview_url\":").append(i % 3 == 0 ? "null" : "\"https://p.scdn.co/mp3-preview/" + i + "\"").append(',')
+              .append("\"track_number\":").append(i % 12 + 1).append(',')
+              .append("\"uri\":\"spotify:track:").append(id).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -7,9 +7,16 @@ CREATE TABLE user_song_swipes (
     username VARCHAR(255) NOT NULL,
     songid VARCHAR(255) NOT NULL,
     liked BOOLEAN NOT NULL,
+    title VARCHAR(255) NULL,
+    artist VARCHAR(255) NULL,
+    client_event_id VARCHAR(36) NULL,
     swipe_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     INDEX idx_username (username),
-    INDEX idx_songid (songid)
+    INDEX idx_songid (songid),
+    INDEX idx_username_id (username, id),
+    INDEX idx_username_swipe_time (username, swipe_time),
+    INDEX idx_username_liked_time (username, liked, swipe_time, id),
+    UNIQUE KEY uniq_client_event (client_event_id)
 );
 
 -- Drop existing table if it exists
@@ -20,11 +27,94 @@ CREATE TABLE user_playlists (
     id INT AUTO_INCREMENT PRIMARY KEY,
     username VARCHAR(255) NOT NULL,
     playlist_id VARCHAR(255) NOT NULL,
+    last_swipe_id INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_username_created (username, created_at)
+    INDEX idx_username_created (username, created_at),
+    INDEX idx_username_id (username, id)
 );
 
 -- Query to clear swipes (mark them as used in a playlist)
 -- This should be called when a playlist is created
 INSERT INTO user_playlists (username, playlist_id) 
-VALUES (:username, :playlist_id); 
\ No newline at end of file
+VALUES (:username, :playlist_id); 
+-- Feature-catalogue versioning for client delta sync (feature_catalogue_delta).
+-- Triggers (below) stamp every inserted/changed row with the next catalogue_version;
+-- removed tracks are kept as tombstones with deleted = TRUE.
+ALTER TABLE tracks
+    ADD COLUMN catalogue_version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD INDEX idx_catalogue_version (catalogue_version, id);
+
+-- Content-addressed profile-image renditions (thumb / medium / full JPEG).
+-- Blobs are immutable and keyed by the SHA-1 of their bytes.
+DROP TABLE IF EXISTS image_blobs;
+CREATE TABLE image_blobs (
+    hash CHAR(40) PRIMARY KEY,
+    data MEDIUMBLOB NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Current rendition hashes per user; changing a picture only rewrites this row
+DROP TABLE IF EXISTS profile_images;
+CREATE TABLE profile_images (
+    username VARCHAR(255) PRIMARY KEY,
+    thumb_hash CHAR(40) NOT NULL,
+    medium_hash CHAR(40) NOT NULL,
+    full_hash CHAR(40) NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Username typeahead (search_users): prefix LIKE and keyset paging both use
+-- this index (not needed if username is already the table's primary key)
+ALTER TABLE users
+    ADD INDEX idx_username_search (username);
+
+-- Friend-list versioning for client delta sync (get_friends_delta). set_friend
+-- stamps every added/removed friendship with user1's next change_version; existing
+-- rows start at version 1. Removals are kept as tombstones with deleted = TRUE.
+-- Every reader of the full list (get_friends) must filter on deleted = FALSE, and every
+-- writer (add_friend, remove_friends) must go through the same versioned upsert.
+ALTER TABLE friends
+    ADD COLUMN change_version BIGINT NOT NULL DEFAULT 1,
+    ADD COLUMN deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD UNIQUE KEY uniq_friend_pair (user1, user2),
+    ADD INDEX idx_user1_change_version (user1, change_version, user2);
+
+-- Catalogue versions start at 1, like friends.change_version: a fresh client syncs
+-- with since_version 0 (or -1) and must receive every existing track.
+ALTER TABLE tracks ALTER COLUMN catalogue_version SET DEFAULT 1;
+UPDATE tracks SET catalogue_version = 1 WHERE catalogue_version = 0;
+
+-- Single-row counter behind catalogue_version; LAST_INSERT_ID(expr) hands the bumped
+-- value to the trigger without re-reading tracks.
+DROP TABLE IF EXISTS catalogue_version_seq;
+CREATE TABLE catalogue_version_seq (
+    version BIGINT NOT NULL
+);
+INSERT INTO catalogue_version_seq (version) VALUES (1);
+
+-- Every insert, and every update that changes features or the tombstone flag, gets
+-- the next version, so feature_catalogue_delta sees it without help from an import.
+-- Removing a track means setting deleted = TRUE; a plain DELETE is invisible to clients.
+DROP TRIGGER IF EXISTS tracks_catalogue_version_insert;
+DROP TRIGGER IF EXISTS tracks_catalogue_version_update;
+DELIMITER $$
+CREATE TRIGGER tracks_catalogue_version_insert BEFORE INSERT ON tracks
+FOR EACH ROW
+BEGIN
+    UPDATE catalogue_version_seq SET version = LAST_INSERT_ID(version + 1);
+    SET NEW.catalogue_version = LAST_INSERT_ID();
+END$$
+CREATE TRIGGER tracks_catalogue_version_update BEFORE UPDATE ON tracks
+FOR EACH ROW
+BEGIN
+    IF NOT (NEW.energy <=> OLD.energy AND NEW.`key` <=> OLD.`key` AND NEW.loudness <=> OLD.loudness
+            AND NEW.mode <=> OLD.mode AND NEW.speechiness <=> OLD.speechiness
+            AND NEW.acousticness <=> OLD.acousticness AND NEW.instrumentalness <=> OLD.instrumentalness
+            AND NEW.liveness <=> OLD.liveness AND NEW.valence <=> OLD.valence AND NEW.tempo <=> OLD.tempo
+            AND NEW.deleted <=> OLD.deleted) THEN
+        UPDATE catalogue_version_seq SET version = LAST_INSERT_ID(version + 1);
+        SET NEW.catalogue_version = LAST_INSERT_ID();
+    END IF;
+END$$
+DELIMITER ;